@@ -0,0 +1,135 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Queues events and renders them on a background thread, writing whole batches at a time.
+// The status is captured when the event happens, so a line reads the same however late it is
+// written. When the queue is full the producer waits, so events are never dropped while the
+// writer works. If the writer fails, events are counted and dropped from then on instead, so
+// producers never wait on a queue nobody drains.
+class AsyncEventSink implements OrderEventListener, Closeable {
+    private static final int BATCH_SIZE = 1024;
+    private static final long WAIT_MILLIS = 100; // How often a waiting producer checks the writer is still alive
+
+    // One queued event
+    private static final class Entry {
+        final OrderEvent event;
+        final Order order;
+        final String status;
+        final int orderId;
+
+        Entry(OrderEvent event, Order order, String status, int orderId) {
+            this.event = event;
+            this.order = order;
+            this.status = status;
+            this.orderId = orderId;
+        }
+    }
+
+    private static final Entry STOP = new Entry(null, null, null, 0);
+
+    private final BlockingQueue<Entry> queue;
+    private final Writer out;
+    private final Thread writer;
+    private volatile boolean failed; // The writer stopped on an error, nothing drains the queue
+    private final LongAdder dropped = new LongAdder(); // Events not written because the writer failed
+
+    public AsyncEventSink(OutputStream target, int capacity) {
+        queue = new ArrayBlockingQueue<>(capacity);
+        out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 1 << 16);
+        writer = new Thread(this::drain, "event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void onEvent(OrderEvent event, Order order, int orderId) {
+        if (!put(new Entry(event, order, order == null ? null : order.status, orderId))) {
+            dropped.increment();
+        }
+    }
+
+    // Queue an entry, waiting for space while the writer runs. An interrupt does not drop the
+    // entry, it is kept for the caller. Returns false if the writer has failed.
+    private boolean put(Entry entry) {
+        boolean interrupted = false;
+        try {
+            while (!failed) {
+                try {
+                    if (queue.offer(entry, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Entry entry : batch) {
+                    if (entry == STOP) {
+                        out.flush();
+                        return;
+                    }
+                    out.write(entry.event.render(entry.order, entry.status, entry.orderId));
+                    out.write(System.lineSeparator());
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(batch);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Event writer stopped: " + e);
+            fail(batch);
+        }
+    }
+
+    // Stop accepting events and count everything still queued as dropped
+    private void fail(List<Entry> batch) {
+        failed = true;
+        batch.addAll(queue);
+        queue.clear();
+        for (Entry entry : batch) {
+            if (entry != STOP) {
+                dropped.increment();
+            }
+        }
+    }
+
+    // Events dropped because the writer failed
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    // Write out everything queued so far and stop the writer thread
+    @Override
+    public void close() {
+        put(STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.sum() > 0) {
+            System.err.println("Event writer failed, " + dropped.sum() + " events were not written");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package OrderManagerApp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Orders waiting for stock, in a FIFO waitlist per product. Releasing a product looks only at
+// that product's waitlist: it reserves stock for the oldest orders in turn, stopping at the first
+// one the stock cannot cover or after batchSize orders. A waitlist is dropped once it is empty,
+// so products nobody waits for take no space.
+class BackorderBook {
+    final int batchSize; // Most orders one release moves to the queues
+    private final ConcurrentHashMap<String, LinkedHashMap<Integer, Order>> byProduct = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Order> byId = new ConcurrentHashMap<>();
+
+    public BackorderBook(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void add(Order order) {
+        while (true) {
+            LinkedHashMap<Integer, Order> waitlist = byProduct.computeIfAbsent(order.productId, k -> new LinkedHashMap<>());
+            synchronized (waitlist) {
+                if (byProduct.get(order.productId) != waitlist) {
+                    continue; // Dropped as empty meanwhile, a new one is needed
+                }
+                waitlist.put(order.orderNum, order);
+                byId.put(order.orderNum, order);
+                return;
+            }
+        }
+    }
+
+    // Drop a waitlist that has become empty, called holding its lock
+    private void dropIfEmpty(String productId, LinkedHashMap<Integer, Order> waitlist) {
+        if (waitlist.isEmpty()) {
+            byProduct.remove(productId, waitlist);
+        }
+    }
+
+    // Check if any order is waiting for a product
+    public boolean hasWaiting(String productId) {
+        LinkedHashMap<Integer, Order> waitlist = byProduct.get(productId);
+        if (waitlist == null) {
+            return false;
+        }
+        synchronized (waitlist) {
+            return !waitlist.isEmpty();
+        }
+    }
+
+    public boolean contains(int orderNum) {
+        return byId.containsKey(orderNum);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    // Take an order off its waitlist, returns null if it is not waiting
+    public Order remove(int orderNum) {
+        Order order = byId.get(orderNum);
+        if (order == null) {
+            return null;
+        }
+        LinkedHashMap<Integer, Order> waitlist = byProduct.get(order.productId);
+        if (waitlist == null) {
+            return null; // Released meanwhile, and the waitlist dropped
+        }
+        synchronized (waitlist) {
+            if (waitlist.remove(orderNum) == null) {
+                return null; // Released or cancelled meanwhile
+            }
+            byId.remove(orderNum);
+            dropIfEmpty(order.productId, waitlist);
+        }
+        return order;
+    }
+
+    // Reserve stock for the oldest orders waiting for a product and take them off the waitlist
+    public List<Order> release(String productId, Inventory inventory) {
+        LinkedHashMap<Integer, Order> waitlist = byProduct.get(productId);
+        if (waitlist == null) {
+            return Collections.emptyList();
+        }
+        List<Order> released = new ArrayList<>();
+        synchronized (waitlist) {
+            Iterator<Order> waiting = waitlist.values().iterator();
+            while (released.size() < batchSize && waiting.hasNext()) {
+                Order order = waiting.next();
+                if (!inventory.tryReserve(productId, order.orderQuantity)) {
+                    break; // Later orders wait their turn even if they are smaller
+                }
+                waiting.remove();
+                byId.remove(order.orderNum);
+                released.add(order);
+            }
+            dropIfEmpty(productId, waitlist);
+        }
+        return released;
+    }
+
+    // Every waiting order, each waitlist oldest first
+    public List<Order> orders() {
+        List<Order> orders = new ArrayList<>();
+        for (LinkedHashMap<Integer, Order> waitlist : byProduct.values()) {
+            synchronized (waitlist) {
+                orders.addAll(waitlist.values());
+            }
+        }
+        return orders;
+    }
+
+    public void print() {
+        System.out.println("\nBackorders:");
+        boolean any = false;
+        for (LinkedHashMap<Integer, Order> waitlist : byProduct.values()) {
+            synchronized (waitlist) {
+                for (Order order : waitlist.values()) {
+                    System.out.println("Order Info: " + order);
+                    any = true;
+                }
+            }
+        }
+        if (!any) {
+            System.out.println("No orders in the list.");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// Outcome of a batch enqueue, one bit per order in the order the batch was given
+class BatchResult {
+    BitSet accepted; // Bit i is set if the i-th order of the batch was queued or put on a waitlist
+    BitSet backordered; // Bit i is set if the i-th order of the batch was put on a waitlist
+    BitSet outOfStock; // Bit i is set if the i-th order of the batch was rejected for lack of stock
+    BitSet duplicate; // Bit i is set if the i-th order's number was pending or taken earlier in the batch
+    int size; // Number of orders in the batch
+
+    public BatchResult(int size) {
+        this.size = size;
+        this.accepted = new BitSet(size);
+        this.backordered = new BitSet(size);
+        this.outOfStock = new BitSet(size);
+        this.duplicate = new BitSet(size);
+    }
+
+    // Check if the i-th order of the batch was queued
+    public boolean isAccepted(int i) {
+        return accepted.get(i);
+    }
+
+    public int acceptedCount() {
+        return accepted.cardinality();
+    }
+
+    public int rejectedCount() {
+        return size - accepted.cardinality();
+    }
+}
@@ -0,0 +1,276 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Replays a CSV file of commands straight into Inventory and OrderManager without the menu.
+// One command per line, blank lines and lines starting with '#' are skipped:
+//   R,<productId>,<amount>                                      restock
+//   O,<productId>,<quantity>,<customerName>,<orderId>,<true|false>   order
+//   F                                                           fulfill
+//   C,<orderId>                                                 cancel
+class BulkLoader {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_FIELDS = 7;
+
+    // What a command line did
+    enum Outcome { SKIPPED, RESTOCKED, ACCEPTED, REJECTED, BACKORDERED, FULFILLED, EMPTY, CANCELLED, NOT_FOUND, MALFORMED, ROUTED }
+
+    Inventory inventory;
+    OrderManager orderManager;
+    ByteStringPool strings = new ByteStringPool();
+
+    // Summary counters
+    long lines;
+    long restocks;
+    long ordersAccepted;
+    long ordersRejected;
+    long backordered; // Accepted onto a waitlist, also counted as accepted
+    long fulfilled;
+    long emptyFulfills;
+    long cancelled;
+    long cancelMisses;
+    long malformed;
+    long elapsedNanos; // Time spent in load()
+    Order lastFulfilled; // Order fulfilled by the last F command
+
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+
+    public BulkLoader(Inventory inventory, OrderManager orderManager) {
+        this.inventory = inventory;
+        this.orderManager = orderManager;
+    }
+
+    // Stream the whole file through a reused buffer, one line at a time
+    public void load(Path file) throws IOException {
+        long start = System.nanoTime();
+        try {
+            stream(file);
+        } finally {
+            elapsedNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void stream(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] buf = buffer.array();
+            while (true) {
+                boolean eof = channel.read(buffer) == -1;
+                int limit = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (buf[i] == '\n') {
+                        execute(buf, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (eof) {
+                    if (lineStart < limit) {
+                        execute(buf, lineStart, limit); // Last line without a trailing newline
+                    }
+                    return;
+                }
+                if (lineStart == 0 && limit == buf.length) {
+                    throw new IOException("Line longer than " + BUFFER_SIZE + " bytes");
+                }
+                // Keep the partial line for the next read
+                System.arraycopy(buf, lineStart, buf, 0, limit - lineStart);
+                buffer.position(limit - lineStart);
+            }
+        }
+    }
+
+    // End of a line without its trailing '\r', if any
+    static int lineEnd(byte[] buf, int start, int end) {
+        return end > start && buf[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    // Whether a line, already without its '\r', is blank or a comment. These are skipped, and the
+    // server sends no response for them.
+    static boolean isSkipped(byte[] buf, int start, int end) {
+        return start == end || buf[start] == '#';
+    }
+
+    // Split a line on commas and run its command
+    Outcome execute(byte[] buf, int start, int end) {
+        end = lineEnd(buf, start, end);
+        if (isSkipped(buf, start, end)) {
+            return Outcome.SKIPPED;
+        }
+        lines++;
+        int fields = split(buf, start, end);
+        try {
+            switch (fields == 0 ? 0 : buf[start]) {
+                case 'R':
+                    if (fields != 3) {
+                        break;
+                    }
+                    inventory.addStock(string(buf, 1), parsePositive(buf, 2));
+                    restocks++;
+                    return Outcome.RESTOCKED;
+                case 'O':
+                    if (fields != 6 && (fields != 7 || orderManager.expiry == null)) {
+                        break; // An order's own time to live needs expiry turned on
+                    }
+                    Order order = new Order(string(buf, 1), parseBoolean(buf, 5), parsePositive(buf, 2),
+                            string(buf, 3), parseInt(buf, 4));
+                    if (fields == 7) {
+                        order.timeToLiveMillis = parsePositive(buf, 6);
+                    }
+                    if (orderManager.enqueueOrder(order)) {
+                        ordersAccepted++;
+                        if (order.status.equals(OrderStatus.BACKORDERED.label)) {
+                            backordered++;
+                            return Outcome.BACKORDERED;
+                        }
+                        return Outcome.ACCEPTED;
+                    }
+                    ordersRejected++;
+                    return Outcome.REJECTED;
+                case 'F':
+                    if (fields != 1) {
+                        break;
+                    }
+                    lastFulfilled = orderManager.fulfillOrder();
+                    if (lastFulfilled != null) {
+                        fulfilled++;
+                        return Outcome.FULFILLED;
+                    }
+                    emptyFulfills++;
+                    return Outcome.EMPTY;
+                case 'C':
+                    if (fields != 2) {
+                        break;
+                    }
+                    if (orderManager.cancelOrder(parseInt(buf, 1))) {
+                        cancelled++;
+                        return Outcome.CANCELLED;
+                    }
+                    cancelMisses++;
+                    return Outcome.NOT_FOUND;
+            }
+        } catch (NumberFormatException e) {
+            // Counted as malformed below
+        }
+        malformed++;
+        return Outcome.MALFORMED;
+    }
+
+    // Find the comma-separated fields of a line, returns how many there are, or 0 if there are
+    // too many or the first is not a one-letter command
+    int split(byte[] buf, int start, int end) {
+        int fields = 0;
+        fieldStart[0] = start;
+        for (int i = start; i < end; i++) {
+            if (buf[i] == ',') {
+                if (fields + 1 == MAX_FIELDS) {
+                    return 0;
+                }
+                fieldEnd[fields++] = i;
+                fieldStart[fields] = i + 1;
+            }
+        }
+        fieldEnd[fields++] = end;
+        return fieldEnd[0] - fieldStart[0] == 1 ? fields : 0;
+    }
+
+    String string(byte[] buf, int field) {
+        return strings.intern(buf, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    // Parse a decimal int directly from the bytes of a field
+    int parseInt(byte[] buf, int field) {
+        int i = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = i < end && buf[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Empty number");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number");
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Number too large");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number too large");
+        }
+        return (int) value;
+    }
+
+    // Parse an amount, quantity or time to live, which must be above zero like in the menu
+    int parsePositive(byte[] buf, int field) {
+        int value = parseInt(buf, field);
+        if (value <= 0) {
+            throw new NumberFormatException("Not above zero");
+        }
+        return value;
+    }
+
+    boolean parseBoolean(byte[] buf, int field) {
+        int start = fieldStart[field];
+        int len = fieldEnd[field] - start;
+        if (len == 4 && (buf[start] | 0x20) == 't') {
+            return true;
+        }
+        if (len == 5 && (buf[start] | 0x20) == 'f') {
+            return false;
+        }
+        if (len == 1 && (buf[start] == '1' || buf[start] == '0')) {
+            return buf[start] == '1';
+        }
+        throw new NumberFormatException("Not a boolean");
+    }
+
+    // Add the counts of another loader, except for lines and time
+    void addCounts(BulkLoader other) {
+        restocks += other.restocks;
+        ordersAccepted += other.ordersAccepted;
+        ordersRejected += other.ordersRejected;
+        backordered += other.backordered;
+        fulfilled += other.fulfilled;
+        emptyFulfills += other.emptyFulfills;
+        cancelled += other.cancelled;
+        cancelMisses += other.cancelMisses;
+        malformed += other.malformed;
+    }
+
+    // Print what the run did
+    public void printSummary() {
+        printSummary(orderManager.scheduler.size(),
+                orderManager.sales != null ? orderManager.sales.topProducts(5) : Collections.emptyList());
+    }
+
+    void printSummary(long pendingOrders, List<SalesTotals> topProducts) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("=== Bulk Load Summary ===");
+        System.out.printf("Commands: %d in %.3f s (%.0f ops/s)\n", lines, seconds, seconds > 0 ? lines / seconds : 0.0);
+        System.out.printf("Restocks: %d\n", restocks);
+        System.out.printf("Orders accepted: %d, rejected: %d\n", ordersAccepted, ordersRejected);
+        if (backordered > 0) {
+            System.out.printf("Backordered for lack of stock: %d\n", backordered);
+        }
+        System.out.printf("Fulfilled: %d, fulfill with empty queues: %d\n", fulfilled, emptyFulfills);
+        System.out.printf("Cancelled: %d, cancel of unknown order: %d\n", cancelled, cancelMisses);
+        System.out.printf("Malformed lines: %d\n", malformed);
+        System.out.printf("Pending orders: %d\n", pendingOrders);
+        for (SalesTotals product : topProducts) {
+            System.out.println("Top product " + product);
+        }
+    }
+}
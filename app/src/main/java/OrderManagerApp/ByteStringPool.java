@@ -0,0 +1,78 @@
+package OrderManagerApp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Maps byte ranges to shared String instances, so repeated product IDs and customer names
+// read from a file are decoded once instead of once per line. At most maxEntries strings are
+// pooled, later new ones are decoded every time, so a file of distinct names cannot grow the
+// pool without bound.
+class ByteStringPool {
+    static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private final int maxEntries;
+    private byte[][] keys = new byte[1024][];
+    private String[] values = new String[1024];
+    private int count;
+
+    public ByteStringPool() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ByteStringPool(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    // Number of pooled strings
+    public int size() {
+        return count;
+    }
+
+    public String intern(byte[] buf, int off, int len) {
+        int hash = 1;
+        for (int i = off; i < off + len; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        int mask = keys.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null) {
+            if (Arrays.equals(keys[slot], 0, keys[slot].length, buf, off, off + len)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = new String(buf, off, len, StandardCharsets.UTF_8);
+        if (count == maxEntries) {
+            return value;
+        }
+        keys[slot] = Arrays.copyOfRange(buf, off, off + len);
+        values[slot] = value;
+        if (++count * 2 > keys.length) {
+            grow();
+        }
+        return value;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        String[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int hash = 1;
+            for (byte b : oldKeys[i]) {
+                hash = 31 * hash + b;
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// Order queue kept in an OrderStore, linked through slot indexes instead of nodes.
+// Orders handed out are copies rebuilt from the store. Methods are synchronized, so the list
+// can also serve the concurrent mode. A queued order costs its 26-byte store slot, 8 bytes of
+// links and 16 to 32 bytes of the order number index, which is kept at most half full: 50 to 66
+// bytes, plus the slots not yet used since the arrays last doubled.
+class CompactOrderList implements OrderQueue {
+    private final OrderStore store;
+    private int[] next; // Next slot in FIFO order, or the next free slot, -1 at the end
+    private int[] prev;
+    private int head = -1;
+    private int tail = -1;
+    private int free = -1; // First free slot
+    private int used; // Slots ever handed out
+    private final IntIntMap index = new IntIntMap(); // Order number -> slot
+
+    public CompactOrderList(StringDictionary dictionary) {
+        store = new OrderStore(dictionary, 16);
+        next = new int[16];
+        prev = new int[16];
+    }
+
+    private int allocate() {
+        if (free >= 0) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (used == store.capacity()) {
+            int capacity = used * 2;
+            store.resize(capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+        return used++;
+    }
+
+    public synchronized void add(Order order) {
+        if (index.get(order.orderNum) >= 0) {
+            throw new IllegalArgumentException("Order " + order.orderNum + " is already in the list");
+        }
+        int slot = allocate();
+        store.put(slot, order);
+        next[slot] = -1;
+        prev[slot] = tail;
+        if (tail < 0) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+        index.put(order.orderNum, slot);
+    }
+
+    public synchronized void addAll(List<Order> orders) {
+        for (Order order : orders) {
+            add(order);
+        }
+    }
+
+    public synchronized Order removeFirst() {
+        if (head < 0) {
+            return null;
+        }
+        int slot = head;
+        Order order = store.get(slot);
+        unlink(slot);
+        return order;
+    }
+
+    public synchronized Order removeById(int orderNum) {
+        int slot = index.get(orderNum);
+        if (slot < 0) {
+            return null;
+        }
+        Order order = store.get(slot);
+        unlink(slot);
+        return order;
+    }
+
+    // Detach a slot from the FIFO, drop it from the index and put it on the free list
+    private void unlink(int slot) {
+        if (prev[slot] < 0) {
+            head = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] < 0) {
+            tail = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        index.remove(store.orderNum(slot));
+        next[slot] = free;
+        free = slot;
+    }
+
+    public synchronized boolean orderExists(int orderNum) {
+        return index.get(orderNum) >= 0;
+    }
+
+    public synchronized boolean isEmpty() {
+        return head < 0;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized void printList() {
+        if (head < 0) {
+            System.out.println("No orders in the list.");
+            return;
+        }
+        for (int slot = head; slot >= 0; slot = next[slot]) {
+            System.out.println("Order Info: " + store.get(slot));
+        }
+    }
+
+    // Head to tail. Iterates over copies made up front, so it is safe alongside changes.
+    public synchronized Iterator<Order> iterator() {
+        List<Order> orders = new ArrayList<>(index.size());
+        for (int slot = head; slot >= 0; slot = next[slot]) {
+            orders.add(store.get(slot));
+        }
+        return orders.iterator();
+    }
+}
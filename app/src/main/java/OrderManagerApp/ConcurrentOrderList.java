@@ -0,0 +1,150 @@
+package OrderManagerApp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thread-safe order queue for the concurrent mode.
+// An order belongs to whichever thread removes it from the live map, so a fulfill and a cancel
+// racing for the same order can never both win. Cancelled orders stay in the FIFO as
+// tombstones and are skipped when they reach the front. Once tombstones outnumber the live
+// orders the FIFO is swept, so a cancel-heavy load cannot grow it without bound.
+class ConcurrentOrderList implements OrderQueue {
+    private static final int MIN_SWEEP = 1024; // Tombstones worth a sweep even with few live orders
+
+    ConcurrentLinkedQueue<Order> queue = new ConcurrentLinkedQueue<>(); // FIFO order, may hold tombstones
+    ConcurrentHashMap<Integer, Order> live = new ConcurrentHashMap<>(); // Order number -> order still in the list
+    AtomicInteger size = new AtomicInteger(); // Number of live orders
+    private final AtomicInteger tombstones = new AtomicInteger(); // Roughly, entries of the FIFO that are not live
+    private final AtomicBoolean sweeping = new AtomicBoolean(); // Set while a thread sweeps
+
+    // Add an order to the list
+    public void add(Order order) {
+        if (live.putIfAbsent(order.orderNum, order) != null) {
+            throw new IllegalArgumentException("Order " + order.orderNum + " is already in the list");
+        }
+        size.incrementAndGet();
+        queue.offer(order);
+    }
+
+    // Add several orders to the end of the list, keeping their order. Adds none of them if one
+    // is already in the list.
+    public void addAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (live.putIfAbsent(order.orderNum, order) != null) {
+                for (int j = 0; j < i; j++) {
+                    live.remove(orders.get(j).orderNum, orders.get(j));
+                }
+                throw new IllegalArgumentException("Order " + order.orderNum + " is already in the list");
+            }
+        }
+        size.addAndGet(orders.size());
+        queue.addAll(orders);
+    }
+
+    // Remove the oldest live order, skipping tombstones
+    public Order removeFirst() {
+        Order order;
+        while ((order = queue.poll()) != null) {
+            if (live.remove(order.orderNum, order)) {
+                size.decrementAndGet();
+                return order;
+            }
+            tombstones.decrementAndGet();
+        }
+        return null;
+    }
+
+    // Remove an order by its ID, its queue entry becomes a tombstone
+    public Order removeById(int orderNum) {
+        Order order = live.remove(orderNum);
+        if (order != null) {
+            int remaining = size.decrementAndGet();
+            int dead = tombstones.incrementAndGet();
+            if (dead > MIN_SWEEP && dead > remaining) {
+                sweep();
+            }
+        }
+        return order;
+    }
+
+    // Unlink every tombstone from the FIFO, one thread at a time
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            queue.removeIf(order -> live.get(order.orderNum) != order);
+            // Concurrent changes can make this a little off, it only decides when to sweep again
+            tombstones.set(Math.max(0, queue.size() - size.get()));
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    // Check if an order with a specific ID exists
+    public boolean orderExists(int orderNum) {
+        return live.containsKey(orderNum);
+    }
+
+    // Check if the list has no orders
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    // Walk the live orders in FIFO order, weakly consistent with concurrent changes
+    public Iterator<Order> iterator() {
+        Iterator<Order> entries = queue.iterator();
+        return new Iterator<Order>() {
+            Order next = advance();
+
+            private Order advance() {
+                while (entries.hasNext()) {
+                    Order order = entries.next();
+                    if (live.get(order.orderNum) == order) {
+                        return order;
+                    }
+                }
+                return null;
+            }
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public Order next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Order order = next;
+                next = advance();
+                return order;
+            }
+        };
+    }
+
+    // Number of orders in the list
+    public int size() {
+        return size.get();
+    }
+
+    // Print all live orders in FIFO order
+    public void printList() {
+        boolean any = false;
+        for (Order order : queue) {
+            if (live.get(order.orderNum) == order) {
+                System.out.println("Order Info: " + order);
+                any = true;
+            }
+        }
+        if (!any) {
+            System.out.println("No orders in the list.");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package OrderManagerApp;
+
+// Prints each event as it happens, the behaviour of the interactive menu
+class ConsoleEventSink implements OrderEventListener {
+    public void onEvent(OrderEvent event, Order order, int orderId) {
+        System.out.println(event.render(order, order == null ? null : order.status, orderId));
+    }
+}
@@ -0,0 +1,185 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Orders by customer name across the queues and the history, in the order they were placed.
+// An entry holds the Order only while it is pending. Once the order is finalized the entry keeps
+// just its sequence number in the fulfilled or cancelled history, and a lookup reads it back from
+// the history (from the archive file if it was evicted), so finalized orders cost about 24 bytes
+// here instead of staying in memory. Finalized entries are not found by order number, so an order
+// number used again starts a new entry. When archiving is off the history tells the index about
+// the entries it drops, and a customer's entries are compacted once half of them are gone, so the
+// index stays as bounded as the history.
+class CustomerIndex {
+    private static final long PENDING = -1;
+    private static final long CANCELLED = 1L << 62; // Set on references into the cancelled history
+
+    private final OrderHistory fulfilledHistory;
+    private final OrderHistory cancelledHistory;
+    private final ConcurrentHashMap<String, CustomerOrders> byCustomer = new ConcurrentHashMap<>();
+
+    // One customer's entries in the order they were placed
+    private static class CustomerOrders {
+        int[] orderNums = new int[4];
+        long[] refs = new long[4]; // History sequence number, with CANCELLED for the cancelled history, or PENDING
+        int size;
+        int dropped; // Entries dropped by their history since the last compaction
+        boolean removed; // Taken out of the index once empty, so changes go to a new CustomerOrders
+        final IntIntMap positions = new IntIntMap(); // Order number of a pending entry to its index in the arrays
+        final Map<Integer, Order> pending = new HashMap<>(); // Orders not finalized yet
+    }
+
+    public CustomerIndex(OrderHistory fulfilledHistory, OrderHistory cancelledHistory) {
+        this.fulfilledHistory = fulfilledHistory;
+        this.cancelledHistory = cancelledHistory;
+        fulfilledHistory.dropListener = this::dropped;
+        cancelledHistory.dropListener = this::dropped;
+    }
+
+    // Index a pending order
+    public void add(Order order) {
+        while (true) {
+            CustomerOrders orders = byCustomer.computeIfAbsent(order.customerName, k -> new CustomerOrders());
+            synchronized (orders) {
+                if (orders.removed) {
+                    continue;
+                }
+                int at = orders.positions.get(order.orderNum);
+                if (at < 0) {
+                    at = append(orders, order.orderNum);
+                    orders.positions.put(order.orderNum, at);
+                }
+                orders.refs[at] = PENDING;
+                orders.pending.put(order.orderNum, order);
+                return;
+            }
+        }
+    }
+
+    // Index an order at its place in a history, with seq as returned by OrderHistory.add
+    public void finalized(Order order, OrderHistory history, long seq) {
+        while (true) {
+            CustomerOrders orders = byCustomer.computeIfAbsent(order.customerName, k -> new CustomerOrders());
+            synchronized (orders) {
+                if (orders.removed) {
+                    continue;
+                }
+                int at = orders.positions.remove(order.orderNum);
+                if (at < 0) { // Never indexed as pending, as when the index is rebuilt from the history
+                    at = append(orders, order.orderNum);
+                } else {
+                    orders.pending.remove(order.orderNum);
+                }
+                orders.refs[at] = history == cancelledHistory ? seq | CANCELLED : seq;
+                return;
+            }
+        }
+    }
+
+    // Told by a history about an entry it dropped, under the history's lock
+    private void dropped(Order order) {
+        CustomerOrders orders = byCustomer.get(order.customerName);
+        if (orders == null) {
+            return;
+        }
+        synchronized (orders) {
+            if (orders.removed || ++orders.dropped * 2 < orders.size) {
+                return;
+            }
+            compact(orders);
+            if (orders.size == 0) {
+                orders.removed = true;
+                byCustomer.remove(order.customerName, orders);
+            }
+        }
+    }
+
+    // Append an entry for an order number, compacting or growing the arrays when they are full
+    private int append(CustomerOrders orders, int orderNum) {
+        if (orders.size == orders.orderNums.length) {
+            compact(orders);
+            if (orders.size * 2 > orders.orderNums.length) {
+                orders.orderNums = Arrays.copyOf(orders.orderNums, orders.orderNums.length * 2);
+                orders.refs = Arrays.copyOf(orders.refs, orders.refs.length * 2);
+            }
+        }
+        orders.orderNums[orders.size] = orderNum;
+        return orders.size++;
+    }
+
+    // Remove the entries whose history entry was dropped, keeping the rest in order
+    private void compact(CustomerOrders orders) {
+        int kept = 0;
+        for (int i = 0; i < orders.size; i++) {
+            long ref = orders.refs[i];
+            boolean gone = ref != PENDING && ((ref & CANCELLED) != 0
+                    ? (ref & ~CANCELLED) < cancelledHistory.firstAvailable()
+                    : ref < fulfilledHistory.firstAvailable());
+            if (gone) {
+                continue;
+            }
+            if (ref == PENDING && kept != i) {
+                orders.positions.put(orders.orderNums[i], kept);
+            }
+            orders.orderNums[kept] = orders.orderNums[i];
+            orders.refs[kept++] = ref;
+        }
+        orders.size = kept;
+        orders.dropped = 0;
+    }
+
+    // Number of customers with entries
+    public int size() {
+        return byCustomer.size();
+    }
+
+    // Copy the status of a pending order onto its indexed entry, which may be a different object
+    // when the queues store orders compactly
+    public void update(Order order) {
+        CustomerOrders orders = byCustomer.get(order.customerName);
+        if (orders == null) {
+            return;
+        }
+        synchronized (orders) {
+            Order indexed = orders.pending.get(order.orderNum);
+            if (indexed != null && indexed != order) {
+                indexed.status = order.status;
+            }
+        }
+    }
+
+    // A customer's orders with their current status, oldest first
+    public List<Order> lookup(String customerName) throws IOException {
+        CustomerOrders orders = byCustomer.get(customerName);
+        if (orders == null) {
+            return Collections.emptyList();
+        }
+        long[] refs;
+        Order[] pending;
+        synchronized (orders) {
+            refs = Arrays.copyOf(orders.refs, orders.size);
+            pending = new Order[orders.size];
+            for (int i = 0; i < orders.size; i++) {
+                if (refs[i] == PENDING) {
+                    pending[i] = orders.pending.get(orders.orderNums[i]);
+                }
+            }
+        }
+        List<Order> found = new ArrayList<>(refs.length);
+        for (int i = 0; i < refs.length; i++) {
+            Order order = refs[i] == PENDING ? pending[i]
+                    : (refs[i] & CANCELLED) != 0 ? cancelledHistory.get(refs[i] & ~CANCELLED)
+                    : fulfilledHistory.get(refs[i]);
+            if (order != null) {
+                found.add(order);
+            }
+        }
+        return found;
+    }
+
+    public void clear() {
+        byCustomer.clear();
+    }
+}
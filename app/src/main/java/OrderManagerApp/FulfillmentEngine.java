@@ -0,0 +1,198 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Drains the order queues continuously on a pool of workers. A dispatcher thread takes orders and
+// hands each to a worker, which runs the downstream work and then completes the order. At most
+// maxInFlight orders are taken but not yet completed. If the work throws, the order goes back
+// to the queues, and once it has failed maxAttempts times it is cancelled and its stock returned.
+// Workers are virtual threads when the JVM has them, platform threads otherwise.
+// The order manager must be thread-safe, see OrderManager(Inventory, boolean).
+class FulfillmentEngine implements Closeable {
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50); // Dispatcher rechecks for shutdown this often
+    private static final long DRAIN_RECHECK_MILLIS = 50; // drain also rechecks this often, for cancels that empty the queues
+
+    private final OrderManager orderManager;
+    private final Consumer<Order> work; // Downstream work for one order, runs on a worker
+    private final ExecutorService workers;
+    private final Semaphore slots; // One permit per order that may be in flight
+    private final int maxInFlight;
+    private final int maxAttempts; // Failed attempts after which an order is cancelled instead of retried
+    private final ConcurrentHashMap<Integer, Integer> failures = new ConcurrentHashMap<>(); // Order number -> failed attempts so far
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong gaveUp = new AtomicLong();
+    private final Object idle = new Object(); // Notified when the engine may have run out of work
+    private volatile int drainers; // Threads waiting in drain
+
+    public FulfillmentEngine(OrderManager orderManager, int maxInFlight, Consumer<Order> work) {
+        this(orderManager, maxInFlight, work, newWorkerPool(maxInFlight), DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public FulfillmentEngine(OrderManager orderManager, int maxInFlight, Consumer<Order> work, ExecutorService workers) {
+        this(orderManager, maxInFlight, work, workers, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public FulfillmentEngine(OrderManager orderManager, int maxInFlight, Consumer<Order> work, ExecutorService workers,
+                             int maxAttempts) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        this.orderManager = orderManager;
+        this.work = work;
+        this.workers = workers;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+        this.slots = new Semaphore(maxInFlight);
+        dispatcher = new Thread(this::dispatch, "fulfillment-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    // A thread per order on JDKs with virtual threads, a fixed pool of size platform threads otherwise
+    static ExecutorService newWorkerPool(int size) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(size, task -> {
+                Thread thread = new Thread(task, "fulfillment-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void dispatch() {
+        try {
+            while (running) {
+                slots.acquire();
+                Order order = orderManager.takeOrder();
+                if (order == null) {
+                    slots.release();
+                    signalIfIdle();
+                    orderManager.awaitPending(IDLE_WAIT_NANOS);
+                    continue;
+                }
+                try {
+                    workers.execute(() -> fulfill(order));
+                } catch (RejectedExecutionException e) {
+                    orderManager.abandonOrder(order);
+                    slots.release();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        }
+    }
+
+    private void fulfill(Order order) {
+        try {
+            work.accept(order);
+            failures.remove(order.orderNum);
+            orderManager.completeOrder(order);
+            completed.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            retryOrCancel(order);
+        } finally {
+            slots.release();
+            signalIfIdle();
+        }
+    }
+
+    // Put a failed order back in the queues, or cancel it once it has failed maxAttempts times
+    private void retryOrCancel(Order order) {
+        if (failures.merge(order.orderNum, 1, Integer::sum) < maxAttempts) {
+            orderManager.abandonOrder(order);
+        } else {
+            failures.remove(order.orderNum);
+            orderManager.cancelTakenOrder(order);
+            gaveUp.incrementAndGet();
+        }
+        if (failures.size() > maxInFlight + 1024) {
+            // Orders cancelled or expired while waiting for a retry leave their counts behind
+            failures.keySet().removeIf(orderNum -> !orderManager.isPending(orderNum));
+        }
+    }
+
+    // Wake drain if nothing is queued or in flight
+    private void signalIfIdle() {
+        if (drainers > 0 && orderManager.scheduler.size() == 0 && inFlight() == 0) {
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        }
+    }
+
+    // Orders taken but not yet completed
+    public int inFlight() {
+        return maxInFlight - slots.availablePermits();
+    }
+
+    public long completedCount() {
+        return completed.get();
+    }
+
+    public long failedCount() {
+        return failed.get();
+    }
+
+    // Orders cancelled after failing maxAttempts times
+    public long gaveUpCount() {
+        return gaveUp.get();
+    }
+
+    // Wait until nothing is pending or in flight. Enqueues that keep coming can delay this indefinitely.
+    public void drain() throws InterruptedException {
+        synchronized (idle) {
+            drainers++;
+            try {
+                while (running && (orderManager.scheduler.size() > 0 || inFlight() > 0)) {
+                    idle.wait(DRAIN_RECHECK_MILLIS);
+                }
+            } finally {
+                drainers--;
+            }
+        }
+    }
+
+    // Stop taking orders and wait for the ones in flight to complete. Pending orders stay queued.
+    @Override
+    public void close() {
+        running = false;
+        synchronized (idle) {
+            idle.notifyAll();
+        }
+        dispatcher.interrupt();
+        boolean interrupted = false;
+        try {
+            dispatcher.join();
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting, the work of an order cannot be abandoned halfway
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// One page of a history query
+class HistoryPage {
+    List<Order> orders; // Matching orders, oldest first
+    long nextCursor; // Pass this to the next query to continue after this page
+    boolean hasMore; // Whether there were entries left to look at
+
+    public HistoryPage(List<Order> orders, long nextCursor, boolean hasMore) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+}
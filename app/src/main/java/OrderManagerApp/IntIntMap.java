@@ -0,0 +1,84 @@
+package OrderManagerApp;
+
+// Hash map from int keys to non-negative int values with open addressing, so no entry objects
+// or boxed integers are allocated
+class IntIntMap {
+    private int[] keys = new int[16];
+    private int[] values = new int[16]; // Value + 1, 0 marks a free cell
+    private int size;
+
+    private int cell(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & (keys.length - 1);
+    }
+
+    // Value for the key, or -1 if there is none
+    public int get(int key) {
+        int mask = keys.length - 1;
+        for (int i = cell(key); values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    public void put(int key, int value) {
+        if (size * 2 >= keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = cell(key);
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value + 1;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value + 1;
+        size++;
+    }
+
+    // Remove a key, returns its value or -1 if there was none
+    public int remove(int key) {
+        int mask = keys.length - 1;
+        int i = cell(key);
+        while (values[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == 0) {
+            return -1;
+        }
+        int value = values[i] - 1;
+        // Shift later entries of the probe run back, so lookups never stop at a hole
+        for (int j = (i + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+            int home = cell(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = 0;
+        size--;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                put(oldKeys[i], oldValues[i] - 1);
+            }
+        }
+    }
+}
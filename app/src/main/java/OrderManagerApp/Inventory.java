@@ -0,0 +1,132 @@
+package OrderManagerApp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Inventory class to manage a list of product stocks
+class Inventory {
+    List<ProductStock> productRecords; // List of all product stocks, in the order they were added
+    Map<String, ProductStock> productIndex; // Product ID -> stock record, for constant time lookups
+    Journal journal; // Write-ahead journal for restocks, null when journaling is off
+    OrderMetrics metrics; // Times lookups, null when metrics are off
+    Consumer<String> restockListener; // Told the product ID after each addStock, null for none
+
+    public Inventory() {
+        productRecords = new ArrayList<>(); // Initialize the product records list
+        productIndex = new ConcurrentHashMap<>();
+    }
+
+    // Find the stock record for a product, or null if it does not exist
+    public ProductStock lookup(String productCode) {
+        return productIndex.get(productCode);
+    }
+
+    // Update stock by decreasing the inventory for a product
+    public void updateStock(String productCode, int Amount) {
+        ProductStock item = lookup(productCode);
+        if (item != null) {
+            item.DecreaseInventory(Amount);
+        }
+    }
+
+    // Check and reserve stock for a product in one step, returns false if the product is missing or short
+    public boolean tryReserve(String productCode, int Amount) {
+        OrderMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        ProductStock item = lookup(productCode);
+        boolean reserved = item != null && item.tryReserve(Amount);
+        if (metrics != null) {
+            metrics.lookup.record(System.nanoTime() - start);
+        }
+        return reserved;
+    }
+
+    // Check if sufficient inventory is available for a product
+    public boolean InventoryCheck(String productCode, int Amount) {
+        OrderMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        ProductStock item = lookup(productCode);
+        boolean available = item != null && item.isAvailable(Amount);
+        if (metrics != null) {
+            metrics.lookup.record(System.nanoTime() - start);
+        }
+        return available;
+    }
+
+    // Check if a product exists in the inventory
+    public boolean productExists(String productCode) {
+        OrderMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        boolean exists = productIndex.containsKey(productCode);
+        if (metrics != null) {
+            metrics.lookup.record(System.nanoTime() - start);
+        }
+        return exists;
+    }
+
+    // Add new stock to the inventory or update existing stock
+    public void addStock(String productCode, int Amount) {
+        Journal journal = this.journal;
+        if (journal == null) {
+            fill(productCode, Amount);
+        } else {
+            journal.beginChange();
+            try {
+                fill(productCode, Amount);
+                journal.logRestock(productCode, Amount);
+            } finally {
+                journal.endChange();
+            }
+        }
+        Consumer<String> listener = restockListener;
+        if (listener != null) {
+            listener.accept(productCode);
+        }
+    }
+
+    // Add stock without journaling it or telling the restock listener, used when restoring state.
+    // Orders a restock released from a waitlist are restored as orders of their own.
+    void restoreStock(String productCode, int Amount) {
+        fill(productCode, Amount);
+    }
+
+    // Put the stock of a cancelled order back. Not journaled, the cancel record already implies it.
+    public void returnStock(String productCode, int Amount) {
+        fill(productCode, Amount);
+    }
+
+    // Take stock without checking it is available, used when replaying reservations that already succeeded
+    public void takeStock(String productCode, int Amount) {
+        fill(productCode, -Amount);
+    }
+
+    // Add to a product's stock, creating the product if it does not exist
+    private void fill(String productCode, int Amount) {
+        ProductStock item = lookup(productCode);
+        if (item != null) {
+            item.FillStock(Amount);
+            return;
+        }
+        synchronized (productRecords) {
+            item = productIndex.get(productCode); // Another thread may have added it meanwhile
+            if (item == null) {
+                item = new ProductStock(Amount, productCode);
+                productRecords.add(item);
+                productIndex.put(productCode, item);
+                return;
+            }
+        }
+        item.FillStock(Amount);
+    }
+
+    // Print the current inventory
+    public void printStock() {
+        System.out.println("Current Inventory:");
+        synchronized (productRecords) {
+            for (ProductStock item : productRecords) {
+                System.out.printf("Product ID: %s, Stock: %d\n", item.productId, item.Amount);
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// Append-only binary journal of every state change, replayed on startup.
+// The journal is split into numbered segment files so a snapshot can retire the older ones.
+// Each record is [int length][byte type][payload][int CRC32 of type and payload], strings are
+// written as an unsigned short length followed by UTF-8 bytes. Records are buffered and forced
+// to disk as a group: after groupCommitRecords records, or once groupCommitMillis has passed.
+// A group size of 1 makes every change durable before the call returns.
+class Journal implements Closeable {
+    static final byte RESTOCK = 1; // productId, amount
+    static final byte ORDER_ADDED = 2; // orderNum, quantity, priority, productId, customerName
+    static final byte FULFILLED = 3; // orderNum
+    static final byte CANCELLED = 4; // orderNum
+    static final byte ORDER_ADDED_TTL = 5; // As ORDER_ADDED, then long timeToLiveMillis, for orders with their own limit
+    static final byte BACKORDERED = 6; // As ORDER_ADDED_TTL, for an order put on a waitlist without a reservation
+    static final byte REQUEUED = 7; // orderNum, a taken order put back behind the queued ones
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    Path dir;
+    long segment; // Number of the segment being appended to
+    Path file; // Path of that segment
+    volatile long pendingRecords; // Records no snapshot covers yet, including replayed ones
+    // Changes hold the read side while they update state and log it, a snapshot holds the write
+    // side so it sees state that matches exactly the segments before the current one
+    final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private FileChannel rotated; // Segment left by the last rotate until closeRotated, not synced yet
+    private boolean rotatedSynced;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final int groupCommitRecords; // Records per fsync
+    private final long groupCommitNanos; // Longest time a record may wait for its fsync, 0 for no limit
+    private final ScheduledExecutorService flusher; // Forces waiting records out when traffic stops
+    private int unsyncedRecords;
+    private long lastSync = System.nanoTime();
+    private int recordStart;
+
+    public Journal(Path dir, long segment, int groupCommitRecords, long groupCommitMillis) throws IOException {
+        this.dir = dir;
+        this.groupCommitRecords = Math.max(1, groupCommitRecords);
+        this.groupCommitNanos = TimeUnit.MILLISECONDS.toNanos(groupCommitMillis);
+        openSegment(segment);
+        if (groupCommitMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::syncIfDue, groupCommitMillis, groupCommitMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    // Path of a segment file
+    static Path segmentFile(Path dir, long segment) {
+        return dir.resolve(String.format("%s%08d%s", PREFIX, segment, SUFFIX));
+    }
+
+    // Numbers of the segment files in a directory, oldest first
+    static List<Long> listSegments(Path dir) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private void openSegment(long segment) throws IOException {
+        this.segment = segment;
+        file = segmentFile(dir, segment);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        pendingRecords = 0;
+    }
+
+    // Take the read side of the state lock around a change and its journal record
+    void beginChange() {
+        stateLock.readLock().lock();
+    }
+
+    void endChange() {
+        stateLock.readLock().unlock();
+    }
+
+    // Write out the current segment and start appending to the next one, returns its number.
+    // Called with the write side of the state lock held, so it leaves the fsync of the old segment
+    // to closeRotated, to be called once the lock is released. Until then every sync forces the old
+    // segment first, so no record becomes durable ahead of one before it.
+    public synchronized long rotate() throws IOException {
+        if (rotated != null) { // Left open by a snapshot that failed
+            rotated.force(false);
+            rotated.close();
+        }
+        writeBuffer();
+        rotated = channel;
+        rotatedSynced = unsyncedRecords == 0;
+        openSegment(segment + 1);
+        return segment;
+    }
+
+    // Force the segment the last rotate left to disk and close it
+    public void closeRotated() throws IOException {
+        FileChannel previous;
+        synchronized (this) {
+            previous = rotated;
+        }
+        if (previous == null) {
+            return;
+        }
+        previous.force(false); // Outside the monitor, appends to the new segment carry on meanwhile
+        synchronized (this) {
+            rotated = null;
+        }
+        previous.close();
+    }
+
+    public synchronized void logRestock(String productId, int amount) {
+        byte[] id = encode(productId);
+        begin(RESTOCK, id.length + 6);
+        putString(id);
+        buffer.putInt(amount);
+        end();
+    }
+
+    public synchronized void logOrderAdded(Order order) {
+        byte[] id = encode(order.productId);
+        byte[] customer = encode(order.customerName);
+        boolean ttl = order.timeToLiveMillis > 0;
+        begin(ttl ? ORDER_ADDED_TTL : ORDER_ADDED, id.length + customer.length + (ttl ? 21 : 13));
+        buffer.putInt(order.orderNum);
+        buffer.putInt(order.orderQuantity);
+        buffer.put((byte) (order.Precedence ? 1 : 0));
+        putString(id);
+        putString(customer);
+        if (ttl) {
+            buffer.putLong(order.timeToLiveMillis);
+        }
+        end();
+    }
+
+    public synchronized void logBackordered(Order order) {
+        byte[] id = encode(order.productId);
+        byte[] customer = encode(order.customerName);
+        begin(BACKORDERED, id.length + customer.length + 21);
+        buffer.putInt(order.orderNum);
+        buffer.putInt(order.orderQuantity);
+        buffer.put((byte) (order.Precedence ? 1 : 0));
+        putString(id);
+        putString(customer);
+        buffer.putLong(order.timeToLiveMillis);
+        end();
+    }
+
+    public synchronized void logFulfilled(int orderNum) {
+        begin(FULFILLED, 4);
+        buffer.putInt(orderNum);
+        end();
+    }
+
+    public synchronized void logCancelled(int orderNum) {
+        begin(CANCELLED, 4);
+        buffer.putInt(orderNum);
+        end();
+    }
+
+    public synchronized void logRequeued(int orderNum) {
+        begin(REQUEUED, 4);
+        buffer.putInt(orderNum);
+        end();
+    }
+
+    // Write and fsync everything appended so far
+    public synchronized void sync() {
+        try {
+            if (rotated != null && !rotatedSynced) {
+                rotated.force(false);
+                rotatedSynced = true;
+            }
+            writeBuffer();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        unsyncedRecords = 0;
+        lastSync = System.nanoTime();
+    }
+
+    private synchronized void syncIfDue() {
+        if (unsyncedRecords > 0 && System.nanoTime() - lastSync >= groupCommitNanos) {
+            sync();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        sync();
+        channel.close();
+        if (rotated != null) {
+            rotated.close();
+            rotated = null;
+        }
+    }
+
+    private static byte[] encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for the journal: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private void putString(byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    // Start a record, making room for its header, payload and checksum. Throws before anything is
+    // buffered if the record can never fit, so a failed append leaves no partial record behind.
+    private void begin(byte type, int payloadSize) {
+        if (payloadSize + 9 > BUFFER_SIZE) {
+            throw new IllegalArgumentException("Record too large for the journal: " + payloadSize + " bytes");
+        }
+        if (buffer.remaining() < payloadSize + 9) {
+            try {
+                writeBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        recordStart = buffer.position();
+        buffer.putInt(0); // Length, filled in by end()
+        buffer.put(type);
+    }
+
+    // Finish a record and fsync if its group is complete
+    private void end() {
+        int length = buffer.position() - recordStart - 4;
+        buffer.putInt(recordStart, length);
+        crc.reset();
+        crc.update(buffer.array(), recordStart + 4, length);
+        buffer.putInt((int) crc.getValue());
+        unsyncedRecords++;
+        pendingRecords++;
+        if (unsyncedRecords >= groupCommitRecords
+                || (groupCommitNanos > 0 && System.nanoTime() - lastSync >= groupCommitNanos)) {
+            sync();
+        }
+    }
+
+    // Write out the buffered records. Whatever a failed write leaves unwritten stays buffered.
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    // Apply every intact record in a segment to the inventory and order manager, which must not
+    // have journals attached yet. A torn or corrupt tail left by a crash is cut off.
+    // Returns the number of records applied.
+    public static long replay(Path file, Inventory inventory, OrderManager orderManager) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long records = 0;
+        long goodPosition = 0;
+        CRC32 crc = new CRC32();
+        byte[] record = new byte[256];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    if (length <= 0 || length > BUFFER_SIZE) {
+                        break;
+                    }
+                    if (length > record.length) {
+                        record = new byte[length];
+                    }
+                    in.readFully(record, 0, length);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(record, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(record, 0, length), inventory, orderManager);
+                goodPosition += length + 8;
+                records++;
+            }
+        }
+        if (goodPosition < Files.size(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(goodPosition);
+            }
+        }
+        return records;
+    }
+
+    private static void apply(ByteBuffer record, Inventory inventory, OrderManager orderManager) {
+        byte type = record.get();
+        switch (type) {
+            case RESTOCK: {
+                String productId = getString(record);
+                inventory.restoreStock(productId, record.getInt());
+                break;
+            }
+            case ORDER_ADDED:
+            case ORDER_ADDED_TTL: {
+                int orderNum = record.getInt();
+                int quantity = record.getInt();
+                boolean priority = record.get() == 1;
+                String productId = getString(record);
+                String customerName = getString(record);
+                Order order = new Order(productId, priority, quantity, customerName, orderNum);
+                if (type == ORDER_ADDED_TTL) {
+                    order.timeToLiveMillis = record.getLong();
+                }
+                if (orderManager.backorders != null) {
+                    orderManager.backorders.remove(orderNum); // Released from a waitlist, if it was on one
+                }
+                // The reservation already succeeded when it was logged, so take the stock unconditionally
+                inventory.takeStock(productId, quantity);
+                orderManager.scheduler.add(order);
+                break;
+            }
+            case BACKORDERED: {
+                int orderNum = record.getInt();
+                int quantity = record.getInt();
+                boolean priority = record.get() == 1;
+                String productId = getString(record);
+                Order order = new Order(productId, priority, quantity, getString(record), orderNum);
+                order.timeToLiveMillis = record.getLong();
+                orderManager.restoreBackorder(order);
+                break;
+            }
+            case FULFILLED:
+                orderManager.replayRemoval(record.getInt(), true);
+                break;
+            case CANCELLED:
+                orderManager.replayRemoval(record.getInt(), false);
+                break;
+            case REQUEUED:
+                orderManager.replayRequeue(record.getInt());
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getShort() & 0xFFFF;
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+}
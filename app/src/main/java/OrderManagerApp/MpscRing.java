@@ -0,0 +1,61 @@
+package OrderManagerApp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer, single-consumer queue on an array ring. A producer claims a slot with
+// one CAS on the tail and publishes it by writing the slot's sequence number; the consumer takes
+// slots in order and never competes with anyone, so neither side takes a lock.
+class MpscRing<T> {
+    private final Object[] items;
+    private final AtomicLongArray sequences; // Slot i holds item n when its sequence is n + 1, and is free for n when it is n
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // Next position to claim
+    private long head; // Next position to take, consumer only
+
+    public MpscRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        items = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // Add an item, returns false if the ring is full
+    public boolean offer(T item) {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence < position) {
+                return false; // Still holds the item from one lap ago
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                break;
+            }
+        }
+        items[slot] = item;
+        sequences.set(slot, position + 1);
+        return true;
+    }
+
+    // Take the oldest item, or null if there is none. Only one thread may call this.
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        T item = (T) items[slot];
+        items[slot] = null;
+        sequences.set(slot, head + items.length);
+        head++;
+        return item;
+    }
+}
@@ -0,0 +1,9 @@
+package OrderManagerApp;
+
+// Drops every event, for headless and benchmark runs
+class NoOpEventSink implements OrderEventListener {
+    static final NoOpEventSink INSTANCE = new NoOpEventSink();
+
+    public void onEvent(OrderEvent event, Order order, int orderId) {
+    }
+}
@@ -0,0 +1,14 @@
+package OrderManagerApp;
+
+// Node class to represent each element in a linked list of orders
+class Node {
+    Order order;
+    Node next;
+    Node prev; // Back link so a node can be unlinked without walking the list
+
+    public Node(Order order) {
+        this.order = order;
+        this.next = null; // Initialize next as null
+        this.prev = null;
+    }
+}
@@ -0,0 +1,34 @@
+package OrderManagerApp;
+
+// Order class to represent a customer's order
+class Order {
+    int orderQuantity; // Quantity of the product ordered
+    String customerName; // Name of the customer
+    volatile String status; // Status of the order (e.g., Awaiting, Fulfilled)
+    boolean Precedence; // Indicates if the order is a priority
+    int orderNum; // Unique order number
+    String productId; // ID of the product ordered
+    long enqueuedAt; // When a scheduler queued the order, in its clock's units
+    long timeToLiveMillis; // How long the order may stay queued, 0 for the default of its priority
+
+    public Order(String productId, boolean Precedence, int orderQuantity, String customerName, int orderNum) {
+        this.productId = productId;
+        this.Precedence = Precedence;
+        this.orderQuantity = orderQuantity;
+        this.customerName = customerName;
+        this.orderNum = orderNum;
+        this.status = "Awaiting"; // Default status is Awaiting
+    }
+
+    // Format the order details for display
+    @Override
+    public String toString() {
+        return describe(status);
+    }
+
+    // Format the order details with a given status, used to render events after the status has moved on
+    public String describe(String status) {
+        return String.format("(The Product: %s  -  Is Priority: %b  -  Status: %s  -  Order Quantity: %d  -  Customer Name: %s   -  ID: %d)",
+                productId, Precedence, status, orderQuantity, customerName, orderNum);
+    }
+}
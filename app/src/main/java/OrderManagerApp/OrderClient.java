@@ -0,0 +1,169 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Client for OrderServer that sends a command file over one connection with up to window requests
+// in flight, for testing and benchmarking over loopback. A writer thread sends the commands and the
+// calling thread reads the responses, timing each request from the socket write that sends it to
+// its response. Lines are split and skipped by the same rules as the server, so every request sent
+// gets exactly one response.
+class OrderClient {
+    private static final int BUFFER_SIZE = 64 * 1024; // Also the longest command line, as on the server
+
+    final LatencyHistogram latency = new LatencyHistogram();
+    final Map<String, Long> outcomes = new TreeMap<>(); // Responses by their first word
+    long requests;
+    long elapsedNanos;
+
+    public void run(InetSocketAddress address, Path file, int window) throws IOException, InterruptedException {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        long[] sentAt = new long[window]; // Send time by request number modulo window
+        Semaphore slots = new Semaphore(window);
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            BufferedReader responses = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 1 << 16);
+            AtomicLong sent = new AtomicLong(-1); // Requests sent, -1 until the writer has finished
+            AtomicReference<IOException> writeError = new AtomicReference<>();
+            Sender sender = new Sender(socket, slots, sentAt);
+            Thread writer = new Thread(() -> {
+                try {
+                    sender.sendFile(file);
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    writeError.set(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    sent.set(sender.written);
+                }
+            }, "order-client-writer");
+            long start = System.nanoTime();
+            writer.start();
+            long received = 0;
+            String response;
+            while ((response = responses.readLine()) != null) {
+                long now = System.nanoTime();
+                latency.record(now - sentAt[(int) (received % window)]);
+                slots.release();
+                received++;
+                int space = response.indexOf(' ');
+                outcomes.merge(space < 0 ? response : response.substring(0, space), 1L, Long::sum);
+            }
+            writer.join();
+            elapsedNanos = System.nanoTime() - start;
+            requests = received;
+            if (writeError.get() != null) {
+                throw writeError.get();
+            }
+            if (received != sent.get()) {
+                throw new IOException("Sent " + sent.get() + " requests but got " + received + " responses");
+            }
+        }
+    }
+
+    // Collects request lines into one buffer and writes it when it fills or before waiting for a
+    // slot. The send time of every request in the buffer is taken just before the write.
+    private static class Sender {
+        final OutputStream out;
+        final Semaphore slots;
+        final long[] sentAt;
+        final byte[] batch = new byte[BUFFER_SIZE];
+        int batchLength;
+        long batched; // Requests added to the buffer, including the ones written
+        long written; // Requests written to the socket
+
+        Sender(Socket socket, Semaphore slots, long[] sentAt) throws IOException {
+            this.out = socket.getOutputStream();
+            this.slots = slots;
+            this.sentAt = sentAt;
+        }
+
+        // Stream the file through a reused buffer one line at a time, as BulkLoader does
+        void sendFile(Path file) throws IOException, InterruptedException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                byte[] buf = buffer.array();
+                while (true) {
+                    boolean eof = channel.read(buffer) == -1;
+                    int limit = buffer.position();
+                    int lineStart = 0;
+                    for (int i = 0; i < limit; i++) {
+                        if (buf[i] == '\n') {
+                            send(buf, lineStart, i);
+                            lineStart = i + 1;
+                        }
+                    }
+                    if (eof) {
+                        if (lineStart < limit) {
+                            send(buf, lineStart, limit); // Last line without a trailing newline
+                        }
+                        flush();
+                        return;
+                    }
+                    if (lineStart == 0 && limit == buf.length) {
+                        throw new IOException("Line longer than " + BUFFER_SIZE + " bytes");
+                    }
+                    System.arraycopy(buf, lineStart, buf, 0, limit - lineStart);
+                    buffer.position(limit - lineStart);
+                }
+            }
+        }
+
+        private void send(byte[] buf, int start, int end) throws IOException, InterruptedException {
+            end = BulkLoader.lineEnd(buf, start, end);
+            if (BulkLoader.isSkipped(buf, start, end)) {
+                return; // The server would not answer it
+            }
+            if (!slots.tryAcquire()) {
+                flush(); // Let the server catch up before waiting on it
+                slots.acquire();
+            }
+            if (batchLength + end - start + 1 > batch.length) {
+                flush();
+            }
+            System.arraycopy(buf, start, batch, batchLength, end - start);
+            batchLength += end - start;
+            batch[batchLength++] = '\n';
+            batched++;
+        }
+
+        private void flush() throws IOException {
+            if (batchLength == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (long request = written; request < batched; request++) {
+                sentAt[(int) (request % sentAt.length)] = now;
+            }
+            out.write(batch, 0, batchLength);
+            batchLength = 0;
+            written = batched;
+        }
+    }
+
+    public void printSummary() {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("=== Client Summary ===");
+        System.out.printf("Requests: %d in %.3f s (%.0f ops/s)\n", requests, seconds, seconds > 0 ? requests / seconds : 0.0);
+        System.out.printf("Latency us: p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f\n", latency.percentile(0.50) / 1e3,
+                latency.percentile(0.99) / 1e3, latency.percentile(0.999) / 1e3, latency.max() / 1e3);
+        for (Map.Entry<String, Long> outcome : outcomes.entrySet()) {
+            System.out.println(outcome.getKey() + ": " + outcome.getValue());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package OrderManagerApp;
+
+// Kinds of events OrderManager reports, and how each one reads on the console
+enum OrderEvent {
+    ADDED,
+    REJECTED,
+    FULFILLED,
+    CANCELLED,
+    CANCEL_NOT_FOUND,
+    NOTHING_TO_FULFILL,
+    BACKORDERED,
+    EXPIRED;
+
+    // Build the console line for an event. Only called by sinks that actually show it.
+    public String render(Order order, String status, int orderId) {
+        switch (this) {
+            case ADDED:
+                return "++ Added Order: " + order.describe(status);
+            case REJECTED:
+                return "Order rejected: Insufficient stock for " + order.productId;
+            case FULFILLED:
+                return "Fulfilled Order: " + order.describe(status);
+            case CANCELLED:
+                return "Cancelled Order: " + order.describe(status);
+            case CANCEL_NOT_FOUND:
+                return "No such order exists.";
+            case BACKORDERED:
+                return "Order backordered: Insufficient stock for " + order.productId;
+            case EXPIRED:
+                return "Expired Order: " + order.describe(status);
+            default:
+                return "No orders to fulfill.";
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package OrderManagerApp;
+
+// Receives the events of an OrderManager. order is null for CANCEL_NOT_FOUND and NOTHING_TO_FULFILL,
+// orderId is the order's number, or the requested one for CANCEL_NOT_FOUND.
+// Implementations must be cheap, they run on the thread that made the change.
+interface OrderEventListener {
+    void onEvent(OrderEvent event, Order order, int orderId);
+}
@@ -0,0 +1,113 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Cancels queued orders that have not been fulfilled within their time to live, returning their
+// stock just as cancelOrder does. An order's own timeToLiveMillis wins over the default for its
+// priority. Timeouts live in a TimingWheel that a background thread advances every tick, and an
+// order's timeout is dropped as soon as it leaves the queues. An order only expires while queued,
+// never while it is being fulfilled. After a restart the restored orders get a full time to live.
+class OrderExpiry implements Closeable {
+    private final OrderManager orderManager;
+    private final long urgentTtlMillis; // 0 for urgent orders that never expire
+    private final long standardTtlMillis; // 0 for standard orders that never expire
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final TimingWheel wheel; // Guarded by this
+    private final Map<Integer, TimingWheel.Timeout> timeouts = new HashMap<>(); // Guarded by this
+    private final Thread thread;
+    private volatile boolean running = true;
+    private final AtomicLong expired = new AtomicLong();
+
+    // The order manager must be thread-safe, expiries run on their own thread
+    public OrderExpiry(OrderManager orderManager, long urgentTtlMillis, long standardTtlMillis, long tickMillis) {
+        if (tickMillis <= 0 || urgentTtlMillis < 0 || standardTtlMillis < 0) {
+            throw new IllegalArgumentException("Tick must be positive and times to live not negative");
+        }
+        this.orderManager = orderManager;
+        this.urgentTtlMillis = urgentTtlMillis;
+        this.standardTtlMillis = standardTtlMillis;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        wheel = new TimingWheel(0);
+        thread = new Thread(this::run, "order-expiry");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - origin) / tickNanos;
+    }
+
+    // Start the clock on a queued order, replacing any timeout it already has
+    public synchronized void schedule(Order order) {
+        long ttl = order.timeToLiveMillis > 0 ? order.timeToLiveMillis : order.Precedence ? urgentTtlMillis : standardTtlMillis;
+        TimingWheel.Timeout previous = ttl > 0
+                ? timeouts.put(order.orderNum, wheel.schedule(order.orderNum, deadline(ttl)))
+                : timeouts.remove(order.orderNum);
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    private long deadline(long ttlMillis) {
+        long ticks = (TimeUnit.MILLISECONDS.toNanos(ttlMillis) + tickNanos - 1) / tickNanos;
+        return currentTick() + ticks;
+    }
+
+    // Drop the timeout of an order that left the queues
+    public synchronized void cancel(int orderNum) {
+        TimingWheel.Timeout timeout = timeouts.remove(orderNum);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    public synchronized int scheduledCount() {
+        return timeouts.size();
+    }
+
+    public long expiredCount() {
+        return expired.get();
+    }
+
+    private synchronized boolean rescheduled(int orderNum) {
+        return timeouts.containsKey(orderNum);
+    }
+
+    private void run() {
+        List<Integer> due = new ArrayList<>();
+        while (running) {
+            LockSupport.parkNanos(this, tickNanos);
+            synchronized (this) {
+                wheel.advance(currentTick(), orderNum -> {
+                    timeouts.remove(orderNum);
+                    due.add(orderNum);
+                });
+            }
+            for (int orderNum : due) {
+                if (rescheduled(orderNum)) {
+                    continue; // Its number was reused by an order queued since
+                }
+                if (orderManager.expireOrder(orderNum)) {
+                    expired.incrementAndGet();
+                }
+            }
+            due.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
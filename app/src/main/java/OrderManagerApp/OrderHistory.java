@@ -0,0 +1,507 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// History of finalized or cancelled orders. The most recent entries stay in a fixed-size ring,
+// older ones are appended to an archive file (or dropped, if archiving is off), so memory use
+// does not grow with the history. Every entry has a sequence number in the order it was added,
+// which is the cursor of the paged queries. Archive records are
+// [int orderNum][int quantity][byte priority][product][customer], strings as in the journal,
+// and the file offset of every INDEX_STRIDE-th record is kept so a page can seek to its start.
+class OrderHistory {
+    static final int DEFAULT_CAPACITY = 10_000;
+    private static final int INDEX_STRIDE = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int WRITE_BUFFERS = 4; // Full buffers one history may have queued for the writer
+    // Writes full archive buffers for every history, so add never waits on the disk
+    private static final ExecutorService ARCHIVE_WRITER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "history-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    String status; // Status of every order in this history
+    int capacity; // Entries kept in memory
+    boolean archiveEvicted; // Write entries leaving the ring to the archive instead of dropping them
+    private final Order[] ring; // Null when the ring is compact
+    private final OrderStore compactRing; // Ring kept as primitive arrays, null unless compact
+    private long count; // Entries ever added, also the sequence number of the next one
+    private long firstRetained; // Sequence number of the oldest entry still in the ring
+    private volatile long firstAvailable; // Sequence number of the oldest entry still readable
+    Consumer<Order> dropListener; // Told each entry dropped because archiving is off, null for none
+
+    private Path archivePath; // Null until an archive is set or the first entry is evicted
+    private FileChannel archive;
+    private ByteBuffer archiveBuffer = ByteBuffer.allocate(BUFFER_SIZE); // Records not yet handed to the writer
+    private final BlockingQueue<ByteBuffer> spareBuffers = new ArrayBlockingQueue<>(WRITE_BUFFERS);
+    private int buffersAllocated = 1;
+    private Future<?> lastWrite; // Latest write handed to the writer, null once waited for
+    private volatile IOException writeFailure; // Set by the writer if a write failed
+    private long archiveBytes; // Archive length including the buffered records
+    // Sparse index over blocks of INDEX_STRIDE archived records: offsets[i] is the file offset of
+    // record i * INDEX_STRIDE, and minOrderNums[i] and maxOrderNums[i] bound the order numbers in
+    // the block, so a range query skips blocks that cannot match without reading them
+    private long[] offsets = new long[16];
+    private int[] minOrderNums = new int[16];
+    private int[] maxOrderNums = new int[16];
+    private long indexedCount; // Records accounted for in the index
+    private long indexedBytes; // File offset of record indexedCount
+
+    public OrderHistory(String status, int capacity, boolean archiveEvicted) {
+        this(status, capacity, archiveEvicted, null);
+    }
+
+    // With a dictionary the ring is an OrderStore, and pages hold copies rebuilt from it
+    public OrderHistory(String status, int capacity, boolean archiveEvicted, StringDictionary dictionary) {
+        this.status = status;
+        this.capacity = capacity;
+        this.archiveEvicted = archiveEvicted;
+        this.ring = dictionary == null ? new Order[capacity] : null;
+        this.compactRing = dictionary == null ? null : new OrderStore(dictionary, capacity);
+    }
+
+    private void setEntry(int slot, Order order) {
+        if (compactRing != null) {
+            compactRing.put(slot, order);
+        } else {
+            ring[slot] = order;
+        }
+    }
+
+    private Order entry(int slot) {
+        return compactRing != null ? compactRing.get(slot) : ring[slot];
+    }
+
+    private int orderNumAt(int slot) {
+        return compactRing != null ? compactRing.orderNum(slot) : ring[slot].orderNum;
+    }
+
+    // Number of entries ever added
+    public synchronized long size() {
+        return count;
+    }
+
+    // Add an entry, returns its sequence number
+    public synchronized long add(Order order) {
+        if (count - firstRetained == capacity) {
+            evictOldest();
+        }
+        setEntry((int) (count % capacity), order);
+        return count++;
+    }
+
+    // Sequence number of the oldest entry that can still be read, without taking the lock
+    public long firstAvailable() {
+        return firstAvailable;
+    }
+
+    // The entry with this sequence number, or null if it was dropped or never added
+    public Order get(long seq) throws IOException {
+        HistoryPage page = page(seq, Integer.MIN_VALUE, Integer.MAX_VALUE, 1);
+        return !page.orders.isEmpty() && page.nextCursor == seq + 1 ? page.orders.get(0) : null;
+    }
+
+    private void evictOldest() {
+        int slot = (int) (firstRetained % capacity);
+        if (archiveEvicted) {
+            try {
+                appendToArchive(entry(slot));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            firstAvailable = firstRetained + 1;
+            Consumer<Order> listener = dropListener;
+            if (listener != null) {
+                listener.accept(entry(slot));
+            }
+        }
+        if (ring != null) {
+            ring[slot] = null;
+        }
+        firstRetained++;
+    }
+
+    // Archive to this file from now on, keeping what it already holds until restore() is called
+    public synchronized void useArchive(Path file) throws IOException {
+        closeArchive();
+        archivePath = file;
+        archive = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        archiveBytes = archive.size();
+        archive.position(archiveBytes);
+    }
+
+    // Reset an empty history to a point where the first archivedCount entries, archivedBytes of
+    // archive, are already on disk. Anything after that in the file is cut off.
+    public synchronized void restore(long archivedCount, long archivedBytes) throws IOException {
+        if (archivedCount > 0 && archive == null) {
+            throw new IOException("No archive file for the " + status + " history");
+        }
+        if (archive != null) {
+            awaitWrites();
+            archive.truncate(archivedBytes);
+            archive.position(archivedBytes);
+        }
+        archiveBuffer.clear();
+        archiveBytes = archivedBytes;
+        count = archivedCount;
+        firstRetained = archivedCount;
+        firstAvailable = 0;
+        if (ring != null) {
+            Arrays.fill(ring, null);
+        }
+        indexedCount = 0;
+        indexedBytes = 0;
+    }
+
+    private void appendToArchive(Order order) throws IOException {
+        if (archive == null) {
+            archivePath = Files.createTempFile("order-history-", ".dat");
+            archivePath.toFile().deleteOnExit();
+            archive = FileChannel.open(archivePath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        byte[] product = order.productId.getBytes(StandardCharsets.UTF_8);
+        byte[] customer = order.customerName.getBytes(StandardCharsets.UTF_8);
+        int length = 13 + product.length + customer.length;
+        if (archiveBuffer.remaining() < length) {
+            handOff();
+        }
+        if (firstRetained == indexedCount) {
+            indexRecord(archiveBytes, archiveBytes + length, order.orderNum);
+        }
+        archiveBuffer.putInt(order.orderNum);
+        archiveBuffer.putInt(order.orderQuantity);
+        archiveBuffer.put((byte) (order.Precedence ? 1 : 0));
+        archiveBuffer.putShort((short) product.length);
+        archiveBuffer.put(product);
+        archiveBuffer.putShort((short) customer.length);
+        archiveBuffer.put(customer);
+        archiveBytes += length;
+    }
+
+    // Add the archived record at indexedCount, from offset up to end, to the index
+    private void indexRecord(long offset, long end, int orderNum) {
+        int block = (int) (indexedCount / INDEX_STRIDE);
+        if (indexedCount % INDEX_STRIDE == 0) {
+            if (block == offsets.length) {
+                offsets = Arrays.copyOf(offsets, block * 2);
+                minOrderNums = Arrays.copyOf(minOrderNums, block * 2);
+                maxOrderNums = Arrays.copyOf(maxOrderNums, block * 2);
+            }
+            offsets[block] = offset;
+            minOrderNums[block] = orderNum;
+            maxOrderNums[block] = orderNum;
+        } else {
+            minOrderNums[block] = Math.min(minOrderNums[block], orderNum);
+            maxOrderNums[block] = Math.max(maxOrderNums[block], orderNum);
+        }
+        indexedCount++;
+        indexedBytes = end;
+    }
+
+    // Queue the buffered records for the writer thread and carry on in a spare buffer.
+    // Only waits if this history already has WRITE_BUFFERS buffers queued.
+    private void handOff() throws IOException {
+        checkWrites();
+        if (archiveBuffer.position() == 0) {
+            return;
+        }
+        ByteBuffer full = archiveBuffer;
+        full.flip();
+        long position = archiveBytes - full.remaining();
+        FileChannel channel = archive;
+        lastWrite = ARCHIVE_WRITER.submit(() -> {
+            try {
+                for (long at = position; full.hasRemaining(); ) {
+                    at += channel.write(full, at);
+                }
+            } catch (IOException e) {
+                writeFailure = e;
+            } finally {
+                full.clear();
+                spareBuffers.offer(full);
+            }
+        });
+        ByteBuffer next = spareBuffers.poll();
+        if (next == null && buffersAllocated < WRITE_BUFFERS) {
+            buffersAllocated++;
+            next = ByteBuffer.allocate(BUFFER_SIZE);
+        } else if (next == null) {
+            awaitWrites(); // The writer is behind, every buffer is queued
+            next = spareBuffers.poll();
+        }
+        archiveBuffer = next;
+    }
+
+    // Wait until the writer thread has written everything handed to it
+    private void awaitWrites() throws IOException {
+        if (lastWrite != null) {
+            await(lastWrite);
+            lastWrite = null;
+        }
+        checkWrites();
+    }
+
+    // Wait for a write handed to the writer thread, and so for every write handed over before it
+    private void await(Future<?> write) throws IOException {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                write.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new IOException("Could not write the " + status + " history archive", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkWrites() throws IOException {
+        IOException failure = writeFailure;
+        if (failure != null) {
+            throw new IOException("Could not write the " + status + " history archive", failure);
+        }
+    }
+
+    // Write buffered archive records to the file and wait for them
+    private void flushArchive() throws IOException {
+        handOff();
+        awaitWrites();
+    }
+
+    // Position of the archive this history is at, taken with the snapshot lock held
+    static class Mark {
+        long archivedCount;
+        long archivedBytes;
+        List<Order> retained = new ArrayList<>(); // Entries still in the ring
+    }
+
+    // Describe the current contents, for a snapshot. Does no I/O; the archive holds archivedBytes
+    // once a later syncArchive returns.
+    public synchronized Mark mark() {
+        Mark mark = new Mark();
+        mark.archivedCount = firstRetained;
+        mark.archivedBytes = archiveBytes;
+        for (long seq = firstRetained; seq < count; seq++) {
+            mark.retained.add(entry((int) (seq % capacity)));
+        }
+        return mark;
+    }
+
+    // Write out buffered records and force the archive to disk. Only handing the records to the
+    // writer holds the lock, so adds carry on while the writer and the disk catch up.
+    public void syncArchive() throws IOException {
+        Future<?> written;
+        FileChannel channel;
+        synchronized (this) {
+            if (archive == null) {
+                return;
+            }
+            handOff();
+            written = lastWrite;
+            channel = archive;
+        }
+        if (written != null) {
+            await(written);
+        }
+        checkWrites();
+        channel.force(false);
+    }
+
+    // Up to limit entries with orderNum in [minOrderNum, maxOrderNum], starting at the cursor.
+    // Archived entries are streamed from the file, so only the page itself is held in memory.
+    public HistoryPage page(long cursor, int minOrderNum, int maxOrderNum, int limit) throws IOException {
+        List<Order> orders = new ArrayList<>();
+        long seq = cursor;
+        while (orders.size() < limit) {
+            long archivedEnd;
+            long offset;
+            synchronized (this) {
+                seq = Math.max(seq, firstAvailable);
+                if (seq >= firstRetained) {
+                    // The rest is in the ring
+                    for (; seq < count && orders.size() < limit; seq++) {
+                        int slot = (int) (seq % capacity);
+                        int orderNum = orderNumAt(slot);
+                        if (orderNum >= minOrderNum && orderNum <= maxOrderNum) {
+                            orders.add(entry(slot));
+                        }
+                    }
+                    return new HistoryPage(orders, seq, seq < count);
+                }
+                flushArchive();
+                archivedEnd = firstRetained;
+                if (minOrderNum != Integer.MIN_VALUE || maxOrderNum != Integer.MAX_VALUE) {
+                    seq = skipBlocks(seq, archivedEnd, minOrderNum, maxOrderNum);
+                    if (seq == archivedEnd) {
+                        continue; // Nothing archived matches, go on to the ring
+                    }
+                }
+                offset = offsetOf(seq - seq % INDEX_STRIDE);
+            }
+            seq = readArchive(seq, offset, archivedEnd, minOrderNum, maxOrderNum, limit, orders);
+        }
+        synchronized (this) {
+            return new HistoryPage(orders, seq, seq < count);
+        }
+    }
+
+    // Move seq past whole archived blocks, before archivedEnd, whose order numbers are all
+    // outside [minOrderNum, maxOrderNum]. Stops at the first block that may match.
+    private long skipBlocks(long seq, long archivedEnd, int minOrderNum, int maxOrderNum) throws IOException {
+        while (seq < archivedEnd) {
+            int block = (int) (seq / INDEX_STRIDE);
+            long blockEnd = (block + 1L) * INDEX_STRIDE;
+            if (blockEnd > archivedEnd) {
+                break; // Still filling, its bounds are not final
+            }
+            indexThrough(blockEnd);
+            if (minOrderNums[block] <= maxOrderNum && maxOrderNums[block] >= minOrderNum) {
+                break;
+            }
+            seq = blockEnd;
+        }
+        return seq;
+    }
+
+    // File offset of an archived record whose sequence number is a multiple of INDEX_STRIDE
+    private long offsetOf(long seq) throws IOException {
+        indexThrough(seq + 1);
+        return offsets[(int) (seq / INDEX_STRIDE)];
+    }
+
+    // Make sure the first count archived records are in the index, scanning the file for any
+    // it is behind on (after a restore)
+    private void indexThrough(long count) throws IOException {
+        if (indexedCount >= count) {
+            return;
+        }
+        ArchiveReader reader = new ArchiveReader(archive, indexedBytes);
+        while (indexedCount < count) {
+            long offset = reader.position;
+            int orderNum = reader.skip();
+            indexRecord(offset, reader.position, orderNum);
+        }
+    }
+
+    // Read archived entries from seq up to archivedEnd, starting at the indexed record at offset
+    private long readArchive(long seq, long offset, long archivedEnd, int minOrderNum, int maxOrderNum,
+                             int limit, List<Order> orders) throws IOException {
+        ArchiveReader reader = new ArchiveReader(archive, offset);
+        for (long skip = seq % INDEX_STRIDE; skip > 0; skip--) {
+            reader.skip();
+        }
+        for (; seq < archivedEnd && orders.size() < limit; seq++) {
+            Order order = reader.read(status);
+            if (order.orderNum >= minOrderNum && order.orderNum <= maxOrderNum) {
+                orders.add(order);
+            }
+        }
+        return seq;
+    }
+
+    // Sequential reader over archive records using positional reads, safe alongside appends
+    private static class ArchiveReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position; // File offset of the next record
+
+        ArchiveReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+            buffer.limit(0);
+        }
+
+        // Make sure the next n bytes are in the buffer
+        private void require(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return;
+            }
+            long filePosition = position + buffer.remaining();
+            buffer.compact();
+            while (buffer.position() < n) {
+                int read = channel.read(buffer, filePosition);
+                if (read < 0) {
+                    throw new EOFException("History archive ends in the middle of a record");
+                }
+                filePosition += read;
+            }
+            buffer.flip();
+        }
+
+        private int readLength() throws IOException {
+            require(2);
+            position += 2;
+            return buffer.getShort() & 0xFFFF;
+        }
+
+        private void skipBytes(int n) throws IOException {
+            require(n);
+            buffer.position(buffer.position() + n);
+            position += n;
+        }
+
+        private String readString() throws IOException {
+            int length = readLength();
+            require(length);
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            position += length;
+            return value;
+        }
+
+        // Skip a record, returns its order number
+        int skip() throws IOException {
+            require(9);
+            int orderNum = buffer.getInt();
+            buffer.position(buffer.position() + 5);
+            position += 9;
+            skipBytes(readLength());
+            skipBytes(readLength());
+            return orderNum;
+        }
+
+        Order read(String status) throws IOException {
+            require(9);
+            int orderNum = buffer.getInt();
+            int quantity = buffer.getInt();
+            boolean priority = buffer.get() == 1;
+            position += 9;
+            String productId = readString();
+            Order order = new Order(productId, priority, quantity, readString(), orderNum);
+            order.status = status;
+            return order;
+        }
+    }
+
+    private void closeArchive() throws IOException {
+        if (archive != null) {
+            flushArchive();
+            archive.close();
+            archive = null;
+        }
+    }
+
+    // Write out buffered records and close the archive file
+    public synchronized void close() throws IOException {
+        closeArchive();
+    }
+}
@@ -0,0 +1,120 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// Linked list of orders
+class OrderList implements OrderQueue {
+    Node head; // Head of the linked list
+    Node tail; // Last node, so appends do not walk the list
+    Map<Integer, Node> index = new HashMap<>(); // Order number -> node, for constant time lookups
+    int size; // Number of orders in the list
+
+    // Add an order to the list
+    public void add(Order order) {
+        Node newNode = new Node(order);
+        if (index.putIfAbsent(order.orderNum, newNode) != null) {
+            throw new IllegalArgumentException("Order " + order.orderNum + " is already in the list");
+        }
+        if (head == null) {
+            head = newNode; // Add the first node if the list is empty
+        } else {
+            tail.next = newNode; // Add the new node at the end of the list
+            newNode.prev = tail;
+        }
+        tail = newNode;
+        size++;
+    }
+
+    // Add several orders to the end of the list, keeping their order
+    public void addAll(List<Order> orders) {
+        for (Order order : orders) {
+            add(order);
+        }
+    }
+
+    // Print all orders in the list
+    public void printList() {
+        if (head == null) {
+            System.out.println("No orders in the list.");
+            return;
+        }
+        Node temp = head;
+        while (temp != null) {
+            System.out.println("Order Info: " + temp.order);
+            temp = temp.next;
+        }
+    }
+
+    // Check if an order with a specific ID exists
+    public boolean orderExists(int orderNum) {
+        return index.containsKey(orderNum);
+    }
+
+    // Remove an order by its ID
+    public Order removeById(int orderNum) {
+        Node node = index.get(orderNum);
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node.order;
+    }
+
+    // Check if the list has no orders
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    // Walk the orders from head to tail
+    public Iterator<Order> iterator() {
+        return new Iterator<Order>() {
+            Node next = head;
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public Order next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Order order = next.order;
+                next = next.next;
+                return order;
+            }
+        };
+    }
+
+    // Number of orders in the list
+    public int size() {
+        return size;
+    }
+
+    // Remove the first order in the list
+    public Order removeFirst() {
+        if (head == null) {
+            return null;
+        }
+        Node temp = head;
+        unlink(temp);
+        return temp.order;
+    }
+
+    // Detach a node from its neighbours and drop it from the index
+    private void unlink(Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.next = null;
+        node.prev = null;
+        index.remove(node.order.orderNum);
+        size--;
+    }
+}
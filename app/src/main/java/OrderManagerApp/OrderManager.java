@@ -0,0 +1,804 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// OrderManager class to handle order processing and inventory management
+class OrderManager {
+    private static final int ADMISSION_STRIPES = 64; // Power of two
+
+    OrderHistory cancelledOrders; // History of cancelled orders
+    OrderScheduler scheduler; // Pending orders, decides which one is fulfilled next
+    OrderHistory finalizedOrders; // History of completed orders
+    Inventory stockManager; // Inventory manager
+    OrderEventListener events = new ConsoleEventSink(); // Where enqueue, fulfill and cancel are reported
+    Journal journal; // Write-ahead journal for state changes, null when journaling is off
+    OrderMetrics metrics; // Latencies and rejections, null when metrics are off
+    SalesAggregates sales; // Totals per product and customer, null to skip them
+    CustomerIndex customerIndex; // Orders by customer, null when the index is off
+    BackorderBook backorders; // Orders waiting for stock, null to reject them instead
+    OrderExpiry expiry; // Cancels orders queued for too long, null when orders never expire
+    final Map<Integer, Order> inFlight = new ConcurrentHashMap<>(); // Orders taken for fulfillment but not yet completed
+    private volatile int highWaterMark = Integer.MAX_VALUE; // Enqueues block once this many orders are pending
+    private volatile int lowWaterMark = Integer.MAX_VALUE; // Blocked enqueues resume at or below this many
+    private final Object pendingMonitor = new Object(); // Waited on for the pending count to change
+    private volatile int pendingWaiters; // Threads waiting on pendingMonitor, so changes only notify when needed
+    // Held from the duplicate check until the order is queued, by order number, so two enqueues
+    // of one number cannot both pass the check. A batch holds all of them.
+    private final ReentrantLock[] admission = new ReentrantLock[ADMISSION_STRIPES];
+
+    public OrderManager(Inventory stockManager) {
+        this(stockManager, false);
+    }
+
+    // When concurrent is true every method may be called from several threads at once
+    public OrderManager(Inventory stockManager, boolean concurrent) {
+        this(stockManager, new TwoQueueScheduler(concurrent));
+    }
+
+    // Use another scheduling policy. It must be thread-safe if the manager is used concurrently.
+    public OrderManager(Inventory stockManager, OrderScheduler scheduler) {
+        this.stockManager = stockManager;
+        this.scheduler = scheduler;
+        cancelledOrders = new OrderHistory("Cancelled", OrderHistory.DEFAULT_CAPACITY, true);
+        finalizedOrders = new OrderHistory("Fulfilled", OrderHistory.DEFAULT_CAPACITY, true);
+        for (int i = 0; i < admission.length; i++) {
+            admission[i] = new ReentrantLock();
+        }
+    }
+
+    // Check if an order is waiting to be fulfilled, being fulfilled or waiting for stock
+    public boolean isPending(int orderNum) {
+        return scheduler.contains(orderNum) || inFlight.containsKey(orderNum)
+                || backorders != null && backorders.contains(orderNum);
+    }
+
+    // Keep orders that are short of stock on a waitlist for their product instead of rejecting them.
+    // Each restock of the product, and each new order for it, moves up to batchSize of them to the queues.
+    public void enableBackorders(int batchSize) {
+        backorders = new BackorderBook(batchSize);
+        stockManager.restockListener = this::releaseBackorders;
+    }
+
+    // Move the oldest orders waiting for a product to the queues, as far as its stock covers
+    void releaseBackorders(String productId) {
+        BackorderBook backorders = this.backorders;
+        if (backorders == null || !backorders.hasWaiting(productId)) {
+            return;
+        }
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.beginChange();
+        }
+        List<Order> released;
+        try {
+            released = backorders.release(productId, stockManager);
+            for (Order order : released) {
+                order.status = "Awaiting";
+                statusChanged(order);
+                if (journal != null) {
+                    journal.logOrderAdded(order); // Journaled only now, with its reservation
+                }
+                scheduler.add(order);
+                if (expiry != null) {
+                    expiry.schedule(order);
+                }
+            }
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
+        }
+        if (released.isEmpty()) {
+            return;
+        }
+        pendingChanged();
+        for (Order order : released) {
+            events.onEvent(OrderEvent.ADDED, order, order.orderNum);
+        }
+    }
+
+    // Make enqueues block while highWaterMark or more orders are pending, until at most lowWaterMark are.
+    // Callers racing past the check can overshoot the high water mark by one order each.
+    // Only useful while something else drains the queues, like a FulfillmentEngine.
+    public void setWatermarks(int highWaterMark, int lowWaterMark) {
+        if (lowWaterMark >= highWaterMark) {
+            throw new IllegalArgumentException("Low water mark must be below the high water mark");
+        }
+        this.lowWaterMark = lowWaterMark;
+        this.highWaterMark = highWaterMark;
+        pendingChanged();
+    }
+
+    // Stop blocking enqueues
+    public void clearWatermarks() {
+        highWaterMark = Integer.MAX_VALUE;
+        lowWaterMark = Integer.MAX_VALUE;
+        pendingChanged();
+    }
+
+    // Block while the queues are over the high water mark, returns how long it blocked in nanoseconds
+    private long awaitCapacity() {
+        if (scheduler.size() < highWaterMark) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        boolean interrupted = false;
+        synchronized (pendingMonitor) {
+            pendingWaiters++;
+            try {
+                while (scheduler.size() > lowWaterMark) {
+                    try {
+                        pendingMonitor.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                pendingWaiters--;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Wait up to the given time for an order to be pending, returns true if there is one
+    boolean awaitPending(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        synchronized (pendingMonitor) {
+            pendingWaiters++;
+            try {
+                long remaining = timeoutNanos;
+                while (scheduler.size() == 0 && remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(pendingMonitor, remaining);
+                    remaining = deadline - System.nanoTime();
+                }
+            } finally {
+                pendingWaiters--;
+            }
+        }
+        return scheduler.size() > 0;
+    }
+
+    // Wake threads waiting for the pending count to change
+    private void pendingChanged() {
+        if (pendingWaiters > 0) {
+            synchronized (pendingMonitor) {
+                pendingMonitor.notifyAll();
+            }
+        }
+    }
+
+    // Add a new order to the appropriate queue, returns false if it was rejected.
+    // Blocks first while the queues are over the high water mark.
+    public boolean enqueueOrder(Order order) {
+        long waited = awaitCapacity();
+        OrderMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return addOrder(order);
+        }
+        if (waited > 0) {
+            metrics.backpressure.record(waited); // Kept apart so enqueue latency is the work itself
+        }
+        long start = System.nanoTime();
+        boolean accepted = addOrder(order);
+        metrics.enqueue.record(System.nanoTime() - start);
+        return accepted;
+    }
+
+    private boolean addOrder(Order order) {
+        ReentrantLock lock = admission[order.orderNum & (ADMISSION_STRIPES - 1)];
+        lock.lock();
+        try {
+            if (isPending(order.orderNum)) {
+                if (metrics != null) {
+                    metrics.duplicates.increment();
+                }
+                events.onEvent(OrderEvent.REJECTED, order, order.orderNum); // Its number is taken
+                return false;
+            }
+            if (!admit(order)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (backorders != null && order.status.equals(OrderStatus.BACKORDERED.label)) {
+            // A restock between the stock check and the waitlist add found nothing waiting, so release here
+            releaseBackorders(order.productId);
+        }
+        return true;
+    }
+
+    // Reserve stock for an order whose number is free and queue it
+    private boolean admit(Order order) {
+        BackorderBook backorders = this.backorders;
+        boolean waiting = false;
+        if (backorders != null && backorders.hasWaiting(order.productId)) {
+            releaseBackorders(order.productId); // Orders already waiting go first
+            waiting = backorders.hasWaiting(order.productId);
+        }
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.beginChange();
+        }
+        try {
+            if (waiting && order.orderQuantity > 0) {
+                return backorder(order);
+            }
+            if (!stockManager.tryReserve(order.productId, order.orderQuantity)) {
+                if (backorders != null && order.orderQuantity > 0 && stockManager.lookup(order.productId) != null) {
+                    return backorder(order);
+                }
+                if (metrics != null) {
+                    metrics.rejections.increment();
+                }
+                if (sales != null) {
+                    sales.onRejected(order);
+                }
+                events.onEvent(OrderEvent.REJECTED, order, order.orderNum);
+                return false;
+            }
+            if (journal != null && !logAdded(order)) {
+                events.onEvent(OrderEvent.REJECTED, order, order.orderNum);
+                return false;
+            }
+            if (customerIndex != null) {
+                customerIndex.add(order); // Before the order can move, so the index never misses a status change
+            }
+            scheduler.add(order);
+            if (expiry != null) {
+                expiry.schedule(order);
+            }
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
+        }
+        pendingChanged();
+        if (sales != null) {
+            sales.onPlaced(order);
+        }
+        events.onEvent(OrderEvent.ADDED, order, order.orderNum);
+        return true;
+    }
+
+    // Journal an order whose stock is reserved, before it is visible so no fulfill or cancel can
+    // precede its record. If the record cannot be written the reservation is given back and false
+    // returned, so a failed append never loses stock.
+    private boolean logAdded(Order order) {
+        try {
+            journal.logOrderAdded(order);
+            return true;
+        } catch (RuntimeException e) {
+            stockManager.returnStock(order.productId, order.orderQuantity);
+            System.err.println("Could not journal order " + order.orderNum + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Put an order on its product's waitlist, called inside a journal change. It counts as placed
+    // and is journaled as backordered, and its reservation is journaled once it is released.
+    private boolean backorder(Order order) {
+        waitlist(order);
+        if (sales != null) {
+            sales.onPlaced(order);
+        }
+        events.onEvent(OrderEvent.BACKORDERED, order, order.orderNum);
+        return true;
+    }
+
+    // Journal an order as backordered and put it on its product's waitlist, called inside a journal change
+    private void waitlist(Order order) {
+        order.status = OrderStatus.BACKORDERED.label;
+        if (journal != null) {
+            journal.logBackordered(order);
+        }
+        if (customerIndex != null) {
+            customerIndex.add(order);
+        }
+        backorders.add(order);
+    }
+
+    // Add a batch of orders without printing each one. Stock is reserved once per product and,
+    // within a product, orders are accepted in the order they appear in the batch. With backorders
+    // on, each product goes as a single enqueue would: its waitlist is released first, and orders
+    // that do not fit, or that would jump ahead of orders still waiting, join the waitlist.
+    public BatchResult enqueueOrders(Collection<Order> orders) {
+        long waited = awaitCapacity();
+        OrderMetrics metrics = this.metrics;
+        if (metrics != null && waited > 0) {
+            metrics.backpressure.record(waited);
+        }
+        Journal journal = this.journal;
+        BatchResult result;
+        for (ReentrantLock lock : admission) {
+            lock.lock();
+        }
+        try {
+            if (journal == null) {
+                result = addBatch(orders);
+            } else {
+                journal.beginChange();
+                try {
+                    result = addBatch(orders);
+                } finally {
+                    journal.endChange();
+                }
+            }
+        } finally {
+            for (ReentrantLock lock : admission) {
+                lock.unlock();
+            }
+        }
+        pendingChanged();
+        if (!result.backordered.isEmpty()) {
+            // As in addOrder, a restock may have found nothing waiting before the waitlist adds
+            Set<String> products = new HashSet<>();
+            int i = 0;
+            for (Order order : orders) {
+                if (result.backordered.get(i++)) {
+                    products.add(order.productId);
+                }
+            }
+            for (String productId : products) {
+                releaseBackorders(productId);
+            }
+        }
+        if (metrics != null) {
+            metrics.rejections.add(result.outOfStock.cardinality());
+            metrics.duplicates.add(result.duplicate.cardinality());
+        }
+        SalesAggregates sales = this.sales;
+        if (sales != null) {
+            int i = 0;
+            for (Order order : orders) {
+                if (result.isAccepted(i)) {
+                    sales.onPlaced(order);
+                } else if (result.outOfStock.get(i)) {
+                    sales.onRejected(order); // Not for duplicate numbers, as in admit
+                }
+                i++;
+            }
+        }
+        return result;
+    }
+
+    private BatchResult addBatch(Collection<Order> orders) {
+        Order[] batch = orders.toArray(new Order[0]);
+        BatchResult result = new BatchResult(batch.length);
+
+        // Group the batch positions by product, leaving out orders whose number is pending or
+        // taken by an earlier order of the batch
+        Map<String, List<Integer>> groups = new HashMap<>();
+        Set<Integer> numbers = new HashSet<>();
+        for (int i = 0; i < batch.length; i++) {
+            if (isPending(batch[i].orderNum) || !numbers.add(batch[i].orderNum)) {
+                result.duplicate.set(i);
+                continue;
+            }
+            groups.computeIfAbsent(batch[i].productId, k -> new ArrayList<>()).add(i);
+        }
+        BackorderBook backorders = this.backorders;
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            ProductStock stock = stockManager.lookup(group.getKey());
+            if (stock == null) {
+                continue;
+            }
+            if (backorders == null) {
+                stock.reserveInOrder(batch, group.getValue(), result.accepted);
+                continue;
+            }
+            releaseBackorders(group.getKey()); // Orders already waiting go first
+            if (!backorders.hasWaiting(group.getKey())) {
+                stock.reserveInOrder(batch, group.getValue(), result.accepted, true);
+            }
+            for (int pos : group.getValue()) {
+                if (!result.accepted.get(pos) && batch[pos].orderQuantity > 0) {
+                    waitlist(batch[pos]);
+                    result.accepted.set(pos);
+                    result.backordered.set(pos);
+                }
+            }
+        }
+        for (List<Integer> positions : groups.values()) {
+            for (int pos : positions) {
+                if (!result.accepted.get(pos)) {
+                    result.outOfStock.set(pos);
+                }
+            }
+        }
+
+        // Queue the accepted orders in batch order
+        List<Order> accepted = new ArrayList<>(result.acceptedCount());
+        for (int i = result.accepted.nextSetBit(0); i >= 0; i = result.accepted.nextSetBit(i + 1)) {
+            if (result.backordered.get(i)) {
+                continue;
+            }
+            if (journal != null && !logAdded(batch[i])) {
+                result.accepted.clear(i);
+                continue;
+            }
+            if (customerIndex != null) {
+                customerIndex.add(batch[i]);
+            }
+            accepted.add(batch[i]);
+        }
+        scheduler.addAll(accepted);
+        if (expiry != null) {
+            for (Order order : accepted) {
+                expiry.schedule(order);
+            }
+        }
+        return result;
+    }
+
+    // Show the history of finalized and cancelled orders
+    public void showOrderHistory() {
+        System.out.println("Finalized Orders:");
+        printHistory(finalizedOrders);
+        System.out.println("\nCancelled Orders:");
+        printHistory(cancelledOrders);
+    }
+
+    // Print a whole history a page at a time
+    private void printHistory(OrderHistory history) {
+        long cursor = 0;
+        boolean any = false;
+        HistoryPage page;
+        do {
+            try {
+                page = history.page(cursor, Integer.MIN_VALUE, Integer.MAX_VALUE, 1000);
+            } catch (IOException e) {
+                System.out.println("Could not read the order history: " + e.getMessage());
+                return;
+            }
+            for (Order order : page.orders) {
+                System.out.println("Order Info: " + order);
+                any = true;
+            }
+            cursor = page.nextCursor;
+        } while (page.hasMore);
+        if (!any) {
+            System.out.println("No orders in the list.");
+        }
+    }
+
+    // Page through the history of one status ("Fulfilled" or "Cancelled"), keeping orders whose
+    // number is between minOrderNum and maxOrderNum. Start with cursor 0 and pass back nextCursor.
+    public HistoryPage historyPage(String status, long cursor, int minOrderNum, int maxOrderNum, int limit)
+            throws IOException {
+        if (status.equals(finalizedOrders.status)) {
+            return finalizedOrders.page(cursor, minOrderNum, maxOrderNum, limit);
+        }
+        if (status.equals(cancelledOrders.status)) {
+            return cancelledOrders.page(cursor, minOrderNum, maxOrderNum, limit);
+        }
+        throw new IllegalArgumentException("No history for status " + status);
+    }
+
+    // Cancel an order and return the stock to the inventory, returns false if there was no such order
+    public boolean cancelOrder(int orderId) {
+        OrderMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return cancelPending(orderId);
+        }
+        long start = System.nanoTime();
+        boolean cancelled = cancelPending(orderId);
+        metrics.cancel.record(System.nanoTime() - start);
+        return cancelled;
+    }
+
+    // Cancel a queued order whose time to live has run out, returns false if it is no longer queued
+    public boolean expireOrder(int orderId) {
+        return cancelPending(orderId, true);
+    }
+
+    private boolean cancelPending(int orderId) {
+        return cancelPending(orderId, false);
+    }
+
+    private boolean cancelPending(int orderId, boolean expiring) {
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.beginChange();
+        }
+        Order order;
+        try {
+            order = scheduler.remove(orderId);
+            if (order != null) {
+                if (expiry != null && !expiring) {
+                    expiry.cancel(orderId);
+                }
+                order.status = "Cancelled";
+                addToHistory(cancelledOrders, order);
+                if (journal != null) {
+                    journal.logCancelled(order.orderNum);
+                }
+                stockManager.returnStock(order.productId, order.orderQuantity);
+            } else if (!expiring && backorders != null && (order = backorders.remove(orderId)) != null) {
+                order.status = "Cancelled"; // Nothing was reserved for it
+                addToHistory(cancelledOrders, order);
+                if (journal != null) {
+                    journal.logCancelled(order.orderNum);
+                }
+            }
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
+        }
+        if (order != null) {
+            pendingChanged();
+            if (sales != null) {
+                sales.onCancelled(order);
+            }
+            events.onEvent(expiring ? OrderEvent.EXPIRED : OrderEvent.CANCELLED, order, orderId);
+            return true;
+        }
+        if (!expiring) {
+            events.onEvent(OrderEvent.CANCEL_NOT_FOUND, null, orderId);
+        }
+        return false;
+    }
+
+    // Fulfill the next order in the queue, returns the order or null if the queues are empty
+    public Order fulfillOrder() {
+        OrderMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return fulfillNext();
+        }
+        long start = System.nanoTime();
+        Order order = fulfillNext();
+        metrics.fulfill.record(System.nanoTime() - start);
+        return order;
+    }
+
+    private Order fulfillNext() {
+        Order order = takeOrder();
+        if (order != null) {
+            completeOrder(order);
+        } else {
+            events.onEvent(OrderEvent.NOTHING_TO_FULFILL, null, 0);
+        }
+        return order;
+    }
+
+    // Take the next order out of the queues to fulfill it, returns null if the queues are empty.
+    // The order stays in flight, and in snapshots, until completeOrder or abandonOrder.
+    public Order takeOrder() {
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.beginChange();
+        }
+        Order order;
+        try {
+            order = scheduler.next();
+            if (order != null) {
+                if (expiry != null) {
+                    expiry.cancel(order.orderNum);
+                }
+                order.status = "Processing";
+                statusChanged(order);
+                inFlight.put(order.orderNum, order);
+            }
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
+        }
+        if (order != null) {
+            pendingChanged();
+        }
+        return order;
+    }
+
+    // Mark a taken order as fulfilled
+    public void completeOrder(Order order) {
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.beginChange();
+        }
+        try {
+            inFlight.remove(order.orderNum);
+            order.status = "Fulfilled";
+            addToHistory(finalizedOrders, order);
+            if (journal != null) {
+                journal.logFulfilled(order.orderNum);
+            }
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
+        }
+        if (sales != null) {
+            sales.onFulfilled(order);
+        }
+        events.onEvent(OrderEvent.FULFILLED, order, order.orderNum);
+    }
+
+    // Put a taken order that could not be fulfilled back in the queues, behind the orders already there.
+    // Journaled, so a restart keeps it behind them too.
+    public void abandonOrder(Order order) {
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.beginChange();
+        }
+        try {
+            inFlight.remove(order.orderNum);
+            order.status = "Awaiting";
+            statusChanged(order);
+            scheduler.add(order);
+            if (journal != null) {
+                journal.logRequeued(order.orderNum);
+            }
+            if (expiry != null) {
+                expiry.schedule(order);
+            }
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
+        }
+        pendingChanged();
+    }
+
+    // Cancel a taken order that will not be fulfilled and return its stock
+    public void cancelTakenOrder(Order order) {
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.beginChange();
+        }
+        try {
+            inFlight.remove(order.orderNum);
+            order.status = "Cancelled";
+            addToHistory(cancelledOrders, order);
+            if (journal != null) {
+                journal.logCancelled(order.orderNum);
+            }
+            stockManager.returnStock(order.productId, order.orderQuantity);
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
+        }
+        if (sales != null) {
+            sales.onCancelled(order);
+        }
+        events.onEvent(OrderEvent.CANCELLED, order, order.orderNum);
+    }
+
+    // Apply a journaled fulfill or cancel to the order it names, used when replaying the journal
+    void replayRemoval(int orderNum, boolean fulfilled) {
+        Order order = scheduler.remove(orderNum);
+        if (order == null) {
+            order = inFlight.remove(orderNum);
+        }
+        if (order == null && !fulfilled && backorders != null && (order = backorders.remove(orderNum)) != null) {
+            order.status = "Cancelled"; // Nothing was reserved for it
+            cancelledOrders.add(order);
+            return;
+        }
+        if (order == null) {
+            return;
+        }
+        if (fulfilled) {
+            order.status = "Fulfilled";
+            finalizedOrders.add(order);
+        } else {
+            order.status = "Cancelled";
+            cancelledOrders.add(order);
+            stockManager.returnStock(order.productId, order.orderQuantity);
+        }
+    }
+
+    // Move a journaled abandoned order behind the queued ones, used when replaying the journal
+    void replayRequeue(int orderNum) {
+        Order order = scheduler.remove(orderNum);
+        if (order == null) {
+            order = inFlight.remove(orderNum);
+        }
+        if (order != null) {
+            order.status = "Awaiting";
+            scheduler.add(order);
+        }
+    }
+
+    // Put back a journaled or snapshotted backorder
+    void restoreBackorder(Order order) {
+        order.status = OrderStatus.BACKORDERED.label;
+        backorders.add(order);
+    }
+
+    // Record a status change in the customer index
+    private void statusChanged(Order order) {
+        CustomerIndex index = customerIndex;
+        if (index != null) {
+            index.update(order);
+        }
+    }
+
+    // Add a finalized order to a history and point the customer index at its entry there
+    private void addToHistory(OrderHistory history, Order order) {
+        long seq = history.add(order);
+        CustomerIndex index = customerIndex;
+        if (index != null) {
+            index.finalized(order, history, seq);
+        }
+    }
+
+    // A customer's orders in the queues and the history with their current status, oldest first.
+    // Needs the customer index.
+    public List<Order> customerOrders(String customerName) throws IOException {
+        if (customerIndex == null) {
+            throw new IllegalStateException("The customer index is off");
+        }
+        return customerIndex.lookup(customerName);
+    }
+
+    // Recompute the sales totals and the customer index from the history and the pending
+    // orders in one pass, after a restore. Rejections are not journaled, so they count from here on.
+    void rebuildViews() throws IOException {
+        if (sales == null && customerIndex == null) {
+            return;
+        }
+        if (sales != null) {
+            sales.clear();
+        }
+        if (customerIndex != null) {
+            customerIndex.clear();
+        }
+        for (OrderHistory history : new OrderHistory[]{finalizedOrders, cancelledOrders}) {
+            boolean fulfilled = history == finalizedOrders;
+            long cursor = 0;
+            HistoryPage page;
+            do {
+                page = history.page(cursor, Integer.MIN_VALUE, Integer.MAX_VALUE, 4096);
+                long seq = page.nextCursor - page.orders.size(); // Nothing is filtered out, so the page is contiguous
+                for (Order order : page.orders) {
+                    if (sales != null) {
+                        sales.onPlaced(order);
+                        if (fulfilled) {
+                            sales.onFulfilled(order);
+                        } else {
+                            sales.onCancelled(order);
+                        }
+                    }
+                    if (customerIndex != null) {
+                        customerIndex.finalized(order, history, seq);
+                    }
+                    seq++;
+                }
+                cursor = page.nextCursor;
+            } while (page.hasMore);
+        }
+        List<Order> pending = new ArrayList<>();
+        for (Order order : scheduler) {
+            pending.add(order);
+        }
+        if (backorders != null) {
+            pending.addAll(backorders.orders());
+        }
+        for (Order order : pending) {
+            if (sales != null) {
+                sales.onPlaced(order);
+            }
+            if (customerIndex != null) {
+                customerIndex.add(order);
+            }
+        }
+    }
+
+    // Print all orders in the queues
+    public void printQueues() {
+        scheduler.printQueues();
+        if (backorders != null) {
+            backorders.print();
+        }
+    }
+}
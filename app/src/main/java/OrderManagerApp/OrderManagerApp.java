@@ -0,0 +1,774 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.*;
+
+// Main class to run the application
+public class OrderManagerApp {
+    static final long EXPIRY_TICK_MILLIS = 10; // Resolution of order times to live
+
+    public static void main(String[] args) {
+        Path loadFile = null; // Command file for a headless run, null for the menu
+        Path dataDir = null; // Directory for the journal, null to keep state in memory only
+        int groupCommitRecords = 1;
+        long groupCommitMillis = 0;
+        long snapshotEvery = 1_000_000; // Journal records between automatic snapshots
+        String eventMode = null; // console, async or none, by default console for the menu and none for --load
+        int historySize = OrderHistory.DEFAULT_CAPACITY; // History entries kept in memory per status
+        String schedulerMode = "two-queue"; // two-queue or aging
+        int levels = 2; // Priority levels of the aging scheduler
+        long agingMillis = 1000; // Waiting time that promotes an order by one level
+        int workers = 0; // Orders fulfilled at once in the background, 0 to fulfill only on request
+        long workMillis = 0; // Simulated downstream work per background fulfillment
+        int highWater = 0; // Pending orders at which enqueues block while workers run, 0 for no limit
+        boolean compact = false; // Keep queued and historical orders in primitive arrays
+        boolean metricsOn = false; // Record latencies and publish them over JMX
+        long metricsEvery = 0; // Seconds between metrics reports on stderr, 0 for none
+        boolean customerIndex = false; // Index orders by customer for menu option 9
+        boolean salesOn = false; // Keep sales totals per product and customer
+        int servePort = -1; // Port to accept commands on instead of running the menu, -1 for none
+        InetSocketAddress connectTo = null; // Server to send the --load file to instead of running it here
+        int window = 1000; // Requests the client keeps in flight
+        int backorderBatch = 0; // Orders a restock moves from a product's waitlist at once, 0 to reject short orders
+        long ttlMillis = 0; // How long standard orders may stay queued, 0 for no limit
+        long urgentTtlMillis = -1; // How long urgent orders may stay queued, -1 for the same as standard ones
+        int shards = 0; // Product partitions for a --load run, each on its own thread, 0 for one unpartitioned manager
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--load":
+                        loadFile = Paths.get(args[++i]);
+                        break;
+                    case "--data-dir":
+                        dataDir = Paths.get(args[++i]);
+                        break;
+                    case "--group-commit":
+                        groupCommitRecords = Integer.parseInt(args[++i]);
+                        break;
+                    case "--group-commit-ms":
+                        groupCommitMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "--snapshot-every":
+                        snapshotEvery = Long.parseLong(args[++i]);
+                        break;
+                    case "--history-size":
+                        historySize = Integer.parseInt(args[++i]);
+                        if (historySize <= 0) {
+                            throw new IllegalArgumentException("--history-size");
+                        }
+                        break;
+                    case "--scheduler":
+                        schedulerMode = args[++i];
+                        if (!schedulerMode.equals("two-queue") && !schedulerMode.equals("aging")) {
+                            throw new IllegalArgumentException(schedulerMode);
+                        }
+                        break;
+                    case "--levels":
+                        levels = Integer.parseInt(args[++i]);
+                        if (levels <= 0) {
+                            throw new IllegalArgumentException("--levels");
+                        }
+                        break;
+                    case "--aging-ms":
+                        agingMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "--workers":
+                        workers = Integer.parseInt(args[++i]);
+                        break;
+                    case "--work-ms":
+                        workMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "--high-water":
+                        highWater = Integer.parseInt(args[++i]);
+                        if (highWater < 2) {
+                            throw new IllegalArgumentException("--high-water");
+                        }
+                        break;
+                    case "--compact":
+                        compact = true;
+                        break;
+                    case "--metrics":
+                        metricsOn = true;
+                        break;
+                    case "--customer-index":
+                        customerIndex = true;
+                        break;
+                    case "--sales":
+                        salesOn = true;
+                        break;
+                    case "--metrics-every":
+                        metricsEvery = Long.parseLong(args[++i]);
+                        if (metricsEvery <= 0) {
+                            throw new IllegalArgumentException("--metrics-every");
+                        }
+                        metricsOn = true;
+                        break;
+                    case "--serve":
+                        servePort = Integer.parseInt(args[++i]);
+                        if (servePort < 0 || servePort > 65535) {
+                            throw new IllegalArgumentException("--serve");
+                        }
+                        break;
+                    case "--connect":
+                        String target = args[++i];
+                        int colon = target.lastIndexOf(':');
+                        if (colon < 0) {
+                            throw new IllegalArgumentException("--connect");
+                        }
+                        connectTo = new InetSocketAddress(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+                        break;
+                    case "--backorders":
+                        backorderBatch = Integer.parseInt(args[++i]);
+                        if (backorderBatch <= 0) {
+                            throw new IllegalArgumentException("--backorders");
+                        }
+                        break;
+                    case "--ttl-ms":
+                        ttlMillis = Long.parseLong(args[++i]);
+                        if (ttlMillis < 0) {
+                            throw new IllegalArgumentException("--ttl-ms");
+                        }
+                        break;
+                    case "--urgent-ttl-ms":
+                        urgentTtlMillis = Long.parseLong(args[++i]);
+                        if (urgentTtlMillis < 0) {
+                            throw new IllegalArgumentException("--urgent-ttl-ms");
+                        }
+                        break;
+                    case "--shards":
+                        shards = Integer.parseInt(args[++i]);
+                        if (shards <= 0) {
+                            throw new IllegalArgumentException("--shards");
+                        }
+                        break;
+                    case "--window":
+                        window = Integer.parseInt(args[++i]);
+                        if (window <= 0) {
+                            throw new IllegalArgumentException("--window");
+                        }
+                        break;
+                    case "--events":
+                        eventMode = args[++i];
+                        if (!eventMode.equals("console") && !eventMode.equals("async") && !eventMode.equals("none")) {
+                            throw new IllegalArgumentException(eventMode);
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (connectTo != null && loadFile == null || servePort >= 0 && loadFile != null) {
+                throw new IllegalArgumentException("--connect needs --load, --serve excludes it");
+            }
+            if (urgentTtlMillis < 0) {
+                urgentTtlMillis = ttlMillis;
+            }
+            if (shards > 0 && (loadFile == null || connectTo != null || workers > 0 || metricsOn || customerIndex
+                    || eventMode != null || ttlMillis > 0 || urgentTtlMillis > 0)) {
+                throw new IllegalArgumentException("--shards needs --load and excludes workers, metrics, events,"
+                        + " the customer index and times to live");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Usage: java OrderManagerApp [--load <file>] [--data-dir <dir>]"
+                    + " [--group-commit <records>] [--group-commit-ms <ms>] [--snapshot-every <records>]"
+                    + " [--events console|async|none] [--history-size <entries>]"
+                    + " [--scheduler two-queue|aging] [--levels <n>] [--aging-ms <ms>]"
+                    + " [--workers <n>] [--work-ms <ms>] [--high-water <orders>] [--compact]"
+                    + " [--metrics] [--metrics-every <seconds>] [--customer-index] [--sales]"
+                    + " [--serve <port>] [--connect <host:port> --load <file> [--window <requests>]]"
+                    + " [--shards <n>] [--backorders <batch>] [--ttl-ms <ms>] [--urgent-ttl-ms <ms>]");
+            return;
+        }
+        if (connectTo != null) {
+            runClient(connectTo, loadFile, window); // All state lives in the server
+            return;
+        }
+
+        Inventory inventory = new Inventory(); // Create inventory manager
+        if (shards > 0) {
+            Inventory[] inventories = new Inventory[shards];
+            OrderManager[] orderManagers = new OrderManager[shards];
+            for (int i = 0; i < shards; i++) {
+                inventories[i] = new Inventory();
+                orderManagers[i] = newOrderManager(inventories[i], schedulerMode, levels, agingMillis, false,
+                        compact, historySize);
+                orderManagers[i].events = NoOpEventSink.INSTANCE;
+                if (salesOn) {
+                    orderManagers[i].sales = new SalesAggregates();
+                }
+                if (backorderBatch > 0) {
+                    orderManagers[i].enableBackorders(backorderBatch);
+                }
+            }
+            runSharded(loadFile, dataDir, groupCommitRecords, groupCommitMillis, snapshotEvery, inventories, orderManagers);
+            return;
+        }
+        boolean expiring = ttlMillis > 0 || urgentTtlMillis > 0;
+        OrderManager orderManager = newOrderManager(inventory, schedulerMode, levels, agingMillis,
+                workers > 0 || expiring, compact, historySize); // Create order manager
+        OrderScheduler scheduler = orderManager.scheduler;
+        if (backorderBatch > 0) {
+            orderManager.enableBackorders(backorderBatch);
+        }
+        // Before the restore, which rebuilds them
+        if (customerIndex) {
+            orderManager.customerIndex = new CustomerIndex(orderManager.finalizedOrders, orderManager.cancelledOrders);
+        }
+        if (salesOn) {
+            orderManager.sales = new SalesAggregates();
+        }
+        OrderMetrics metrics = null;
+        if (metricsOn) {
+            metrics = new OrderMetrics(scheduler);
+            try {
+                metrics.register();
+            } catch (JMException e) {
+                System.out.println("Could not register the metrics MBean: " + e.getMessage());
+            }
+            if (metricsEvery > 0) {
+                metrics.startReporting(System.err, metricsEvery);
+            }
+            orderManager.metrics = metrics;
+            inventory.metrics = metrics;
+        }
+        if (eventMode == null) {
+            eventMode = loadFile != null || servePort >= 0 ? "none" : "console";
+        }
+        AsyncEventSink asyncSink = null;
+        if (eventMode.equals("none")) {
+            orderManager.events = NoOpEventSink.INSTANCE;
+        } else if (eventMode.equals("async")) {
+            asyncSink = new AsyncEventSink(System.out, 1 << 16);
+            orderManager.events = asyncSink;
+        }
+        Snapshotter store = null;
+        if (dataDir != null) {
+            try {
+                store = openStore(dataDir, groupCommitRecords, groupCommitMillis, snapshotEvery, inventory, orderManager);
+            } catch (IOException e) {
+                System.out.println("Could not restore state from " + dataDir + ": " + e.getMessage());
+                return;
+            }
+        }
+        if (expiring) {
+            orderManager.expiry = new OrderExpiry(orderManager, urgentTtlMillis, ttlMillis, EXPIRY_TICK_MILLIS);
+            for (Order order : orderManager.scheduler) {
+                orderManager.expiry.schedule(order); // Restored orders start a fresh time to live
+            }
+        }
+        FulfillmentEngine engine = null;
+        if (workers > 0) {
+            long workNanos = TimeUnit.MILLISECONDS.toNanos(workMillis);
+            engine = new FulfillmentEngine(orderManager, workers, order -> simulateWork(workNanos));
+            if (highWater > 0) {
+                orderManager.setWatermarks(highWater, highWater / 2);
+            }
+        }
+        BulkLoader loader = null;
+        try {
+            if (loadFile != null) {
+                loader = runBulkLoad(loadFile, inventory, orderManager);
+                if (engine != null) {
+                    engine.drain();
+                }
+            } else if (servePort >= 0) {
+                runServer(servePort, inventory, orderManager);
+            } else {
+                runMenu(inventory, orderManager);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (orderManager.expiry != null) {
+                orderManager.expiry.close();
+                System.out.println("Expired " + orderManager.expiry.expiredCount() + " orders");
+            }
+            if (engine != null) {
+                orderManager.clearWatermarks();
+                engine.close();
+                System.out.println("Fulfillment workers completed " + engine.completedCount() + " orders");
+                if (engine.gaveUpCount() > 0) {
+                    System.out.println("Cancelled " + engine.gaveUpCount() + " orders after "
+                            + FulfillmentEngine.DEFAULT_MAX_ATTEMPTS + " failed attempts");
+                }
+            }
+            if (asyncSink != null) {
+                asyncSink.close();
+            }
+            if (store != null) {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.out.println("Could not close the journal: " + e.getMessage());
+                }
+            }
+        }
+        if (loader != null) {
+            loader.printSummary(); // After the event sink has finished writing
+        }
+        if (metrics != null) {
+            metrics.close();
+            if (loader != null) {
+                System.out.print(metrics.report());
+            }
+        }
+    }
+
+    static OrderManager newOrderManager(Inventory inventory, String schedulerMode, int levels, long agingMillis,
+                                        boolean concurrent, boolean compact, int historySize) {
+        StringDictionary dictionary = compact ? new StringDictionary() : null;
+        OrderScheduler scheduler;
+        if (schedulerMode.equals("aging")) {
+            scheduler = new PriorityAgingScheduler(levels, agingMillis);
+        } else if (compact) {
+            scheduler = new TwoQueueScheduler(new CompactOrderList(dictionary), new CompactOrderList(dictionary));
+        } else {
+            scheduler = new TwoQueueScheduler(concurrent);
+        }
+        OrderManager orderManager = new OrderManager(inventory, scheduler);
+        orderManager.finalizedOrders = new OrderHistory("Fulfilled", historySize, true, dictionary);
+        orderManager.cancelledOrders = new OrderHistory("Cancelled", historySize, true, dictionary);
+        return orderManager;
+    }
+
+    // Load a command file into product partitions, each journaled in its own subdirectory of dataDir.
+    // Products are assigned by hash, so a data directory must always be opened with the same number of shards.
+    static void runSharded(Path loadFile, Path dataDir, int groupCommitRecords, long groupCommitMillis, long snapshotEvery,
+                           Inventory[] inventories, OrderManager[] orderManagers) {
+        List<Snapshotter> stores = new ArrayList<>();
+        ShardedOrderManager shards = null;
+        try {
+            if (dataDir != null) {
+                int existing = 0;
+                if (Files.isDirectory(dataDir)) {
+                    try (DirectoryStream<Path> dirs = Files.newDirectoryStream(dataDir, "shard-*")) {
+                        for (Path dir : dirs) {
+                            existing++;
+                        }
+                    }
+                }
+                if (existing > 0 && existing != orderManagers.length) {
+                    System.out.println(dataDir + " holds " + existing + " shards, not " + orderManagers.length);
+                    return;
+                }
+                for (int i = 0; i < orderManagers.length; i++) {
+                    stores.add(openStore(dataDir.resolve("shard-" + i), groupCommitRecords, groupCommitMillis,
+                            snapshotEvery, inventories[i], orderManagers[i]));
+                }
+            }
+            shards = new ShardedOrderManager(inventories, orderManagers);
+            ShardedLoader loader = new ShardedLoader(shards);
+            loader.load(loadFile);
+            loader.printSummary(); // While the partition threads can still answer
+        } catch (IOException e) {
+            System.out.println("Sharded load of " + loadFile + " failed: " + e.getMessage());
+        } finally {
+            if (shards != null) {
+                shards.close();
+            }
+            for (Snapshotter store : stores) {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.out.println("Could not close the journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Stand-in for the downstream work of fulfilling an order
+    private static void simulateWork(long nanos) {
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+
+    // Restore state from the newest snapshot and the journal segments after it, then log every
+    // later change. Closing the returned store writes a final snapshot and closes the journal.
+    static Snapshotter openStore(Path dataDir, int groupCommitRecords, long groupCommitMillis, long snapshotEvery,
+                                 Inventory inventory, OrderManager orderManager) throws IOException {
+        Files.createDirectories(dataDir);
+        orderManager.finalizedOrders.useArchive(dataDir.resolve(Snapshotter.FINALIZED_ARCHIVE));
+        orderManager.cancelledOrders.useArchive(dataDir.resolve(Snapshotter.CANCELLED_ARCHIVE));
+        boolean backordersOff = orderManager.backorders == null;
+        if (backordersOff) {
+            orderManager.backorders = new BackorderBook(1); // Holds restored backorders until they are cancelled below
+        }
+        long firstSegment = Snapshotter.load(dataDir, inventory, orderManager);
+        if (firstSegment > 0) {
+            System.out.println("Restored snapshot " + firstSegment + " from " + dataDir);
+        }
+        long segment = Math.max(firstSegment, 1);
+        long records = 0;
+        for (long existing : Journal.listSegments(dataDir)) {
+            if (existing >= firstSegment) {
+                records += Journal.replay(Journal.segmentFile(dataDir, existing), inventory, orderManager);
+                segment = Math.max(segment, existing);
+            }
+        }
+        if (records > 0) {
+            System.out.println("Replayed " + records + " journal records from " + dataDir);
+        }
+        // Without backorders turned on nothing would ever release the restored ones, so cancel them
+        List<Order> orphaned = Collections.emptyList();
+        if (backordersOff) {
+            orphaned = orderManager.backorders.orders();
+            orderManager.backorders = null;
+            for (Order order : orphaned) {
+                order.status = "Cancelled";
+                orderManager.cancelledOrders.add(order);
+            }
+        }
+        if (firstSegment > 0 || records > 0) {
+            orderManager.rebuildViews();
+        }
+        Journal journal = new Journal(dataDir, segment, groupCommitRecords, groupCommitMillis);
+        journal.pendingRecords = records;
+        inventory.journal = journal;
+        orderManager.journal = journal;
+        for (Order order : orphaned) {
+            journal.logCancelled(order.orderNum);
+        }
+        if (!orphaned.isEmpty()) {
+            journal.sync();
+            System.out.println("Cancelled " + orphaned.size() + " backordered orders, start with --backorders to keep them");
+        }
+        return new Snapshotter(dataDir, inventory, orderManager, journal, snapshotEvery);
+    }
+
+    // Interactive menu loop
+    static void runMenu(Inventory inventory, OrderManager orderManager) {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("=== Welcome to the Order Management System ===\n");
+
+        while (true) {
+            // Display menu options
+            System.out.println("\n=== Main Menu ===");
+            System.out.println("1. Add Order");
+            System.out.println("2. Fulfill Order");
+            System.out.println("3. Cancel Order");
+            System.out.println("4. Show Order History");
+            System.out.println("5. Show Queues");
+            System.out.println("6. Show Inventory");
+            System.out.println("7. Add or Restock Product to Inventory");
+            System.out.println("8. Exit");
+            System.out.println("9. Find Customer Orders\n"); // After Exit, so scripted input keeps its numbers
+
+            int choice;
+            while (true) {
+                System.out.print("Choose an option: ");
+                try {
+                    choice = Integer.parseInt(scanner.nextLine());
+                    if (choice >= 1 && choice <= 9) {
+                        break; // Valid choice entered
+                    } else {
+                        System.out.println("Invalid option. Please choose a number between 1 and 9.");
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid input. Please enter a numeric value.");
+                }
+            }
+
+            // Process user input
+            switch (choice) {
+                case 1:
+                    // Add a new order
+                    System.out.println("\n=== Add Order ===");
+                    String productId = "";
+                    while (true) {
+                        System.out.print("Enter Product ID (or type 'back' to return to the main menu): ");
+                        productId = scanner.nextLine();
+                        if (productId.equalsIgnoreCase("back")) {
+                            break; // Return to main menu
+                        }
+                        if (inventory.productExists(productId)) {
+                            break; // Valid product ID entered
+                        } else {
+                            System.out.println("Product ID does not exist in inventory. Please add it first.");
+                        }
+                    }
+
+                    if (productId.equalsIgnoreCase("back")) {
+                        continue; // Skip this case
+                    }
+
+                    int quantity = 0;
+                    while (true) {
+                        System.out.print("Enter Order Quantity (or type 'back' to return to the main menu): ");
+                        String input = scanner.nextLine();
+                        if (input.equalsIgnoreCase("back")) {
+                            break; // Return to main menu
+                        }
+                        try {
+                            quantity = Integer.parseInt(input);
+                            if (quantity > 0) {
+                                if (inventory.InventoryCheck(productId, quantity)) {
+                                    break; // Valid quantity
+                                } else {
+                                    System.out.println("Insufficient stock for this quantity. Try again.");
+                                }
+                            } else {
+                                System.out.println("Order quantity must be greater than zero.");
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid input. Please enter a numeric value.");
+                        }
+                    }
+
+                    if (quantity == 0) {
+                        continue; // Skip this case
+                    }
+
+                    System.out.print("Enter Customer Name (or type 'back' to return to the main menu): ");
+                    String customerName = scanner.nextLine();
+                    if (customerName.equalsIgnoreCase("back")) {
+                        continue; // Skip this case
+                    }
+
+                    int orderId = -1;
+                    while (true) {
+                        System.out.print("Enter Order ID (or type 'back' to return to the main menu): ");
+                        String input = scanner.nextLine();
+                        if (input.equalsIgnoreCase("back")) {
+                            break; // Return to main menu
+                        }
+                        try {
+                            orderId = Integer.parseInt(input);
+                            if (!orderManager.isPending(orderId)) {
+                                break; // Valid order ID
+                            } else {
+                                System.out.println("Order ID already exists. Please enter a unique ID.");
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid input. Please enter a numeric value.");
+                        }
+                    }
+
+                    if (orderId == -1) {
+                        continue; // Skip this case
+                    }
+
+                    boolean isPriority = false;
+                    String priorityInput;
+                    while (true) {
+                        System.out.print("Is this a priority order? (true/false or 'back' to return to main menu): ");
+                        priorityInput = scanner.nextLine().toLowerCase();
+                        if (priorityInput.equalsIgnoreCase("back")) {
+                            break; // Return to main menu
+                        }
+                        if (priorityInput.equals("true") || priorityInput.equals("false")) {
+                            isPriority = Boolean.parseBoolean(priorityInput);
+                            break; // Valid input
+                        } else {
+                            System.out.println("Invalid input. Please enter 'true' or 'false'.");
+                        }
+                    }
+
+                    if (priorityInput.equalsIgnoreCase("back")) {
+                        continue; // Skip this case
+                    }
+
+                    // Create and enqueue a new order
+                    Order newOrder = new Order(productId, isPriority, quantity, customerName, orderId);
+                    orderManager.enqueueOrder(newOrder);
+                    continue;
+
+                case 2:
+                    // Fulfill the next order
+                    System.out.println("\n=== Fulfill Order ===");
+                    orderManager.fulfillOrder();
+                    continue;
+
+                case 3:
+                    // Cancel an order
+                    System.out.println("\n=== Cancel Order ===");
+                    int cancelId = -1;
+                    while (true) {
+                        System.out.print("Enter Order ID to cancel (or type 'back' to return to the main menu): ");
+                        String input = scanner.nextLine();
+                        if (input.equalsIgnoreCase("back")) {
+                            break; // Return to main menu
+                        }
+                        try {
+                            cancelId = Integer.parseInt(input);
+                            if (orderManager.isPending(cancelId)) {
+                                break; // Valid ID
+                            } else {
+                                System.out.println("Order ID does not exist. Please try again.");
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid input. Please enter a numeric value.");
+                        }
+                    }
+
+                    if (cancelId == -1) {
+                        continue; // Skip this case
+                    }
+
+                    // Cancel the order
+                    orderManager.cancelOrder(cancelId);
+                    continue;
+
+                case 4:
+                    // Show the order history
+                    System.out.println("\n=== Order History ===");
+                    orderManager.showOrderHistory();
+                    continue;
+
+                case 5:
+                    // Show all orders in the queues
+                    System.out.println("\n=== Current Queues ===");
+                    orderManager.printQueues();
+                    continue;
+
+                case 6:
+                    // Display the current inventory
+                    System.out.println("\n=== Inventory Status ===");
+                    inventory.printStock();
+                    continue;
+
+                case 7:
+                    // Add or restock a product in the inventory
+                    System.out.println("\n=== Add or Restock Product to Inventory ===");
+                    String newProductId;
+                    while (true) {
+                        System.out.print("Enter Product ID (or type 'back' to return to the main menu): ");
+                        newProductId = scanner.nextLine();
+                        if (newProductId.equalsIgnoreCase("back")) {
+                            break; // Return to main menu
+                        }
+                        if (inventory.productExists(newProductId)) {
+                            System.out.println("Product exists. Restocking...");
+                            break; // Restock existing product
+                        } else {
+                            System.out.println("Product does not exist. Adding new product...");
+                            break; // Add new product
+                        }
+                    }
+
+                    if (newProductId.equalsIgnoreCase("back")) {
+                        continue; // Skip this case
+                    }
+
+                    int newAmount = 0;
+                    while (true) {
+                        System.out.print("Enter Stock Amount (or type 'back' to return to the main menu): ");
+                        String input = scanner.nextLine();
+                        if (input.equalsIgnoreCase("back")) {
+                            break; // Return to main menu
+                        }
+                        try {
+                            newAmount = Integer.parseInt(input);
+                            if (newAmount > 0) {
+                                break; // Valid amount
+                            } else {
+                                System.out.println("Stock amount cannot be negative or zero. Try again.");
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid input. Please enter a numeric value.");
+                        }
+                    }
+
+                    if (newAmount == 0) {
+                        continue; // Skip this case
+                    }
+
+                    // Add or restock the product
+                    inventory.addStock(newProductId, newAmount);
+                    System.out.println("Stock added / restocked successfully!");
+                    continue;
+
+                case 8:
+                    // Exit the system
+                    System.out.println("\nThank you for using the Order Management System. Goodbye!");
+                    return;
+
+                case 9:
+                    // Look up a customer's orders in the queues and the history
+                    System.out.println("\n=== Find Customer Orders ===");
+                    System.out.print("Enter Customer Name (or type 'back' to return to the main menu): ");
+                    String customer = scanner.nextLine();
+                    if (customer.equalsIgnoreCase("back")) {
+                        continue; // Return to main menu
+                    }
+                    if (orderManager.customerIndex == null) {
+                        System.out.println("Customer lookup needs the customer index, start with --customer-index.");
+                        continue;
+                    }
+                    List<Order> found;
+                    try {
+                        found = orderManager.customerOrders(customer);
+                    } catch (IOException e) {
+                        System.out.println("Could not read the order history: " + e.getMessage());
+                        continue;
+                    }
+                    if (found.isEmpty()) {
+                        System.out.println("No orders in the list.");
+                    }
+                    for (Order order : found) {
+                        System.out.println("Order Info: " + order);
+                    }
+                    continue;
+            }
+        }
+    }
+
+    // Serve commands until the process is told to stop, then let main shut down as usual
+    static void runServer(int port, Inventory inventory, OrderManager orderManager) throws InterruptedException {
+        OrderServer server;
+        try {
+            server = new OrderServer(new InetSocketAddress(port), new BulkLoader(inventory, orderManager));
+            System.out.println("Listening on port " + server.address().getPort());
+        } catch (IOException e) {
+            System.out.println("Could not listen on port " + port + ": " + e.getMessage());
+            return;
+        }
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                main.join(); // Until the journal and event sink are closed
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        server.awaitTermination();
+        System.out.println("Served " + server.connectionCount() + " connections");
+    }
+
+    // Send a command file to a server and print what it answered
+    static void runClient(InetSocketAddress address, Path file, int window) {
+        OrderClient client = new OrderClient();
+        try {
+            client.run(address, file, window);
+        } catch (IOException e) {
+            System.out.println("Could not send " + file + " to " + address + ": " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        client.printSummary();
+    }
+
+    // Replay a command file without the menu, returns the loader holding the summary or null on failure
+    static BulkLoader runBulkLoad(Path file, Inventory inventory, OrderManager orderManager) {
+        BulkLoader loader = new BulkLoader(inventory, orderManager);
+        try {
+            loader.load(file);
+        } catch (IOException e) {
+            System.out.println("Could not read " + file + ": " + e.getMessage());
+            return null;
+        }
+        return loader;
+    }
+}
@@ -0,0 +1,164 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.*;
+
+// Latencies, queue depths and rejection counts of an order manager. Attach one to OrderManager and
+// Inventory to turn recording on; with none attached each instrumented call only checks for null.
+// Published over JMX as a dynamic MBean, because a standard MBean needs a public interface,
+// and can print itself periodically.
+class OrderMetrics implements DynamicMBean, Closeable {
+    static final String OBJECT_NAME = "OrderManagerApp:type=OrderMetrics";
+
+    final LatencyHistogram enqueue = new LatencyHistogram(); // From after any backpressure wait to the order being queued
+    final LatencyHistogram backpressure = new LatencyHistogram(); // Time enqueues blocked over the high water mark, only those that did
+    final LatencyHistogram fulfill = new LatencyHistogram();
+    final LatencyHistogram cancel = new LatencyHistogram();
+    final LatencyHistogram lookup = new LatencyHistogram(); // Inventory checks and reservations
+    final LongAdder rejections = new LongAdder(); // Orders rejected for lack of stock
+    final LongAdder duplicates = new LongAdder(); // Orders refused because their number was pending
+    private final OrderScheduler scheduler; // Source of the queue depths
+    private final Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+    private final MBeanInfo info;
+    private ScheduledExecutorService reporter;
+
+    public OrderMetrics(OrderScheduler scheduler) {
+        this.scheduler = scheduler;
+        addHistogram("Enqueue", enqueue);
+        addHistogram("Backpressure", backpressure);
+        addHistogram("Fulfill", fulfill);
+        addHistogram("Cancel", cancel);
+        addHistogram("Lookup", lookup);
+        attributes.put("RejectedOrders", rejections::sum);
+        attributes.put("DuplicateOrders", duplicates::sum);
+        for (int queue = 0; queue < scheduler.queueCount(); queue++) {
+            int q = queue;
+            attributes.put(scheduler.queueName(queue) + "QueueDepth", () -> scheduler.queueSize(q));
+        }
+
+        List<MBeanAttributeInfo> attributeInfo = new ArrayList<>();
+        for (Map.Entry<String, Supplier<Object>> attribute : attributes.entrySet()) {
+            String type = attribute.getKey().endsWith("QueueDepth") ? "java.lang.Integer" : "java.lang.Long";
+            attributeInfo.add(new MBeanAttributeInfo(attribute.getKey(), type, attribute.getKey(), true, false, false));
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clear the histograms and counters",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        info = new MBeanInfo(getClass().getName(), "Order manager latencies, queue depths and rejections",
+                attributeInfo.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{reset}, null);
+    }
+
+    private void addHistogram(String name, LatencyHistogram histogram) {
+        attributes.put(name + "Count", histogram::count);
+        attributes.put(name + "P50Nanos", () -> histogram.percentile(0.5));
+        attributes.put(name + "P99Nanos", () -> histogram.percentile(0.99));
+        attributes.put(name + "P999Nanos", () -> histogram.percentile(0.999));
+        attributes.put(name + "MaxNanos", histogram::max);
+    }
+
+    public void reset() {
+        enqueue.reset();
+        backpressure.reset();
+        fulfill.reset();
+        cancel.reset();
+        lookup.reset();
+        rejections.reset();
+        duplicates.reset();
+    }
+
+    // Register with the platform MBean server
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    // Print a report every period until close
+    public synchronized void startReporting(PrintStream out, long periodSeconds) {
+        reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> out.print(report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // One line per histogram, then the queue depths, rejections and duplicates
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        appendHistogram(report, "enqueue", enqueue);
+        appendHistogram(report, "wait", backpressure);
+        appendHistogram(report, "fulfill", fulfill);
+        appendHistogram(report, "cancel", cancel);
+        appendHistogram(report, "lookup", lookup);
+        report.append("[metrics] queues");
+        for (int queue = 0; queue < scheduler.queueCount(); queue++) {
+            report.append(' ').append(scheduler.queueName(queue).toLowerCase()).append('=').append(scheduler.queueSize(queue));
+        }
+        report.append("  rejected=").append(rejections.sum()).append(" duplicates=").append(duplicates.sum()).append('\n');
+        return report.toString();
+    }
+
+    private static void appendHistogram(StringBuilder report, String name, LatencyHistogram histogram) {
+        report.append(String.format("[metrics] %-8s n=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus\n", name,
+                histogram.count(), histogram.percentile(0.5) / 1e3, histogram.percentile(0.99) / 1e3,
+                histogram.percentile(0.999) / 1e3, histogram.max() / 1e3));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Supplier<Object> value = attributes.get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value.get();
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Supplier<Object> value = attributes.get(name);
+            if (value != null) {
+                list.add(new Attribute(name, value.get()));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList list) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+        if (action.equals("reset")) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(action));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return info;
+    }
+}
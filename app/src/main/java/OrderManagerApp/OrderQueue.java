@@ -0,0 +1,23 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// Common operations of the order queues, iteration is in FIFO order
+interface OrderQueue extends Iterable<Order> {
+    // Append an order, throws IllegalArgumentException if its number is already in the queue
+    void add(Order order);
+
+    void addAll(List<Order> orders);
+
+    Order removeFirst();
+
+    Order removeById(int orderNum);
+
+    boolean orderExists(int orderNum);
+
+    boolean isEmpty();
+
+    int size();
+
+    void printList();
+}
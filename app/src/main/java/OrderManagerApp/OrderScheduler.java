@@ -0,0 +1,31 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// Decides which pending order is fulfilled next
+interface OrderScheduler extends Iterable<Order> {
+    // Queue an order, throws IllegalArgumentException if its number is already pending
+    void add(Order order);
+
+    // Add several orders, keeping their relative order
+    void addAll(List<Order> orders);
+
+    // Remove and return the order to fulfill next, or null if nothing is pending
+    Order next();
+
+    // Remove a pending order by its ID, returns null if it is not pending
+    Order remove(int orderNum);
+
+    boolean contains(int orderNum);
+
+    int size();
+
+    void printQueues();
+
+    // Number of queues the pending orders are split into, for depth gauges
+    int queueCount();
+
+    String queueName(int queue);
+
+    int queueSize(int queue);
+}
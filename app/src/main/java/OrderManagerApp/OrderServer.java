@@ -0,0 +1,310 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// TCP front end for an order manager. Requests are bulk load command lines, and every command
+// gets one response line, in request order, so clients may pipeline as many as they like:
+//   R,<product>,<amount>                                                  -> RESTOCKED
+//   O,<product>,<quantity>,<customer>,<orderId>,<priority>[,<ttlMillis>] -> ACCEPTED, BACKORDERED or REJECTED
+//     (the time to live only with --ttl-ms or --urgent-ttl-ms, otherwise MALFORMED)
+//   F                                                                     -> FULFILLED <orderId> or EMPTY
+//   C,<orderId>                                                           -> CANCELLED or NOT_FOUND
+//   anything else                                                         -> MALFORMED
+// Blank and '#' lines get no response. One selector thread does all socket I/O and hands whole
+// lines to a single order thread, the only one that calls the order manager, so the manager can
+// use its non-concurrent queues. A connection is not read while it has more than MAX_BACKLOG
+// bytes of requests or responses outstanding, which pushes back on clients through TCP.
+class OrderServer implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024; // Also the longest request line
+    private static final int MAX_BACKLOG = 1 << 20;
+    private static final int MAX_BATCHES = 256; // Batches the order thread runs per selector wakeup
+    private static final byte[] NEWLINE = {'\n'};
+
+    // Bytes of whole request lines read from one connection
+    private static class Batch {
+        final Connection connection;
+        final byte[] data;
+
+        Batch(Connection connection, byte[] data) {
+            this.connection = connection;
+            this.data = data;
+        }
+    }
+
+    private static class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>(); // Guarded by this
+        final AtomicLong backlog = new AtomicLong(); // Request and response bytes not yet handled
+        boolean inputClosed; // Selector thread only
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    private final BulkLoader executor; // Parses and runs commands, used by the order thread only
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final BlockingQueue<Batch> requests = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<Connection> responded = new ConcurrentLinkedQueue<>(); // Connections with new output
+    private final Thread ioThread;
+    private final Thread orderThread;
+    private final CountDownLatch terminated = new CountDownLatch(2);
+    private volatile boolean running = true;
+    private final AtomicLong connections = new AtomicLong();
+
+    public OrderServer(InetSocketAddress address, BulkLoader executor) throws IOException {
+        this.executor = executor;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        ioThread = new Thread(this::runSelector, "order-server-io");
+        orderThread = new Thread(this::runOrders, "order-server-loop");
+        ioThread.start();
+        orderThread.start();
+    }
+
+    public InetSocketAddress address() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    public long connectionCount() {
+        return connections.get();
+    }
+
+    // Wait until the server has been closed and both threads have stopped
+    public void awaitTermination() throws InterruptedException {
+        terminated.await();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        orderThread.interrupt();
+        try {
+            awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSelector() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = responded.poll()) != null) {
+                    flush(connection);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    connection = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        read(connection);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(connection);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Order server stopped: " + e.getMessage());
+            running = false;
+            orderThread.interrupt();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+            terminated.countDown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+        connections.incrementAndGet();
+    }
+
+    // Read what the socket has and pass every complete line on to the order thread
+    private void read(Connection connection) {
+        ByteBuffer in = connection.in;
+        int count;
+        try {
+            count = connection.channel.read(in);
+        } catch (IOException e) {
+            drop(connection);
+            return;
+        }
+        if (count < 0) {
+            connection.inputClosed = true;
+            if (in.position() > 0 && in.hasRemaining()) {
+                in.put((byte) '\n'); // Last line without a newline, a repeated newline is just a blank line
+            }
+        }
+        int end = in.position();
+        int lastNewline = end - 1;
+        byte[] buf = in.array();
+        while (lastNewline >= 0 && buf[lastNewline] != '\n') {
+            lastNewline--;
+        }
+        if (lastNewline >= 0) {
+            byte[] lines = Arrays.copyOf(buf, lastNewline + 1);
+            connection.backlog.addAndGet(lines.length);
+            requests.add(new Batch(connection, lines));
+            in.limit(end).position(lastNewline + 1);
+            in.compact();
+        } else if (!in.hasRemaining()) {
+            drop(connection); // A line longer than the buffer
+            return;
+        }
+        updateInterest(connection);
+    }
+
+    // Write queued responses until the socket would block
+    private void flush(Connection connection) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        long written = 0;
+        try {
+            synchronized (connection) {
+                ByteBuffer head;
+                while ((head = connection.out.peek()) != null) {
+                    written += connection.channel.write(head);
+                    if (head.hasRemaining()) {
+                        break;
+                    }
+                    connection.out.poll();
+                }
+            }
+        } catch (IOException e) {
+            drop(connection);
+            return;
+        }
+        connection.backlog.addAndGet(-written);
+        updateInterest(connection);
+    }
+
+    private void updateInterest(Connection connection) {
+        boolean pendingOutput;
+        synchronized (connection) {
+            pendingOutput = !connection.out.isEmpty();
+        }
+        long backlog = connection.backlog.get();
+        if (connection.inputClosed && backlog == 0 && !pendingOutput) {
+            drop(connection); // Every request has been answered
+            return;
+        }
+        int ops = pendingOutput ? SelectionKey.OP_WRITE : 0;
+        if (!connection.inputClosed && backlog < MAX_BACKLOG) {
+            ops |= SelectionKey.OP_READ;
+        }
+        connection.key.interestOps(ops);
+    }
+
+    private void drop(Connection connection) {
+        connection.key.cancel();
+        closeQuietly(connection.channel);
+    }
+
+    // The single writer: run every request in arrival order and queue its response
+    private void runOrders() {
+        List<Batch> batches = new ArrayList<>(MAX_BATCHES);
+        ByteArrayOutputStream response = new ByteArrayOutputStream(BUFFER_SIZE);
+        try {
+            while (running) {
+                batches.add(requests.take());
+                requests.drainTo(batches, MAX_BATCHES - 1);
+                for (Batch batch : batches) {
+                    response.reset();
+                    execute(batch.data, response);
+                    Connection connection = batch.connection;
+                    synchronized (connection) {
+                        connection.out.add(ByteBuffer.wrap(response.toByteArray()));
+                    }
+                    connection.backlog.addAndGet(response.size() - batch.data.length);
+                    responded.add(connection);
+                }
+                batches.clear();
+                selector.wakeup(); // Once for everything just answered
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } finally {
+            running = false;
+            selector.wakeup();
+            terminated.countDown();
+        }
+    }
+
+    private void execute(byte[] data, ByteArrayOutputStream response) {
+        int lineStart = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            BulkLoader.Outcome outcome = executor.execute(data, lineStart, i);
+            lineStart = i + 1;
+            if (outcome == BulkLoader.Outcome.SKIPPED) {
+                continue;
+            }
+            byte[] text = outcome.name().getBytes(StandardCharsets.US_ASCII);
+            response.write(text, 0, text.length);
+            if (outcome == BulkLoader.Outcome.FULFILLED) {
+                byte[] id = (" " + executor.lastFulfilled.orderNum).getBytes(StandardCharsets.US_ASCII);
+                response.write(id, 0, id.length);
+            }
+            response.write(NEWLINE, 0, 1);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+    }
+}
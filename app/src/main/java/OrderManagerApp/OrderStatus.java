@@ -0,0 +1,27 @@
+package OrderManagerApp;
+
+// Order statuses, stored as a byte by the compact order store
+enum OrderStatus {
+    AWAITING("Awaiting"),
+    PROCESSING("Processing"),
+    FULFILLED("Fulfilled"),
+    CANCELLED("Cancelled"),
+    BACKORDERED("Backordered"); // On a waitlist for stock
+
+    static final OrderStatus[] VALUES = values();
+
+    final String label; // Order.status text
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    static OrderStatus of(String label) {
+        for (OrderStatus status : VALUES) {
+            if (status.label.equals(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order status " + label);
+    }
+}
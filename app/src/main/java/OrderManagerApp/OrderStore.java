@@ -0,0 +1,68 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// Orders as parallel primitive arrays indexed by slot, 26 bytes a slot (four ints, a long and two
+// bytes) instead of an Order object and its strings. Structures built on it add their own per-order
+// cost, see CompactOrderList. get() rebuilds an Order from a slot, with the strings taken from
+// the dictionary so equal strings are shared.
+class OrderStore {
+    private static final byte PRIORITY = 1;
+
+    final StringDictionary dictionary;
+    private int[] orderNums;
+    private int[] quantities;
+    private int[] products; // Dictionary codes
+    private int[] customers; // Dictionary codes
+    private byte[] statuses; // OrderStatus ordinals
+    private byte[] flags;
+    private long[] timesToLive; // Order.timeToLiveMillis
+
+    public OrderStore(StringDictionary dictionary, int capacity) {
+        this.dictionary = dictionary;
+        orderNums = new int[capacity];
+        quantities = new int[capacity];
+        products = new int[capacity];
+        customers = new int[capacity];
+        statuses = new byte[capacity];
+        flags = new byte[capacity];
+        timesToLive = new long[capacity];
+    }
+
+    public int capacity() {
+        return orderNums.length;
+    }
+
+    // Resize to a new capacity, keeping the slots below it
+    public void resize(int capacity) {
+        orderNums = Arrays.copyOf(orderNums, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        products = Arrays.copyOf(products, capacity);
+        customers = Arrays.copyOf(customers, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        timesToLive = Arrays.copyOf(timesToLive, capacity);
+    }
+
+    public void put(int slot, Order order) {
+        orderNums[slot] = order.orderNum;
+        quantities[slot] = order.orderQuantity;
+        products[slot] = dictionary.encode(order.productId);
+        customers[slot] = dictionary.encode(order.customerName);
+        statuses[slot] = (byte) OrderStatus.of(order.status).ordinal();
+        flags[slot] = order.Precedence ? PRIORITY : 0;
+        timesToLive[slot] = order.timeToLiveMillis;
+    }
+
+    public int orderNum(int slot) {
+        return orderNums[slot];
+    }
+
+    public Order get(int slot) {
+        Order order = new Order(dictionary.decode(products[slot]), (flags[slot] & PRIORITY) != 0, quantities[slot],
+                dictionary.decode(customers[slot]), orderNums[slot]);
+        order.status = OrderStatus.VALUES[statuses[slot]].label;
+        order.timeToLiveMillis = timesToLive[slot];
+        return order;
+    }
+}
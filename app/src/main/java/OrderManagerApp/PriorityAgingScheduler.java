@@ -0,0 +1,163 @@
+package OrderManagerApp;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+// Several priority levels with aging and weighted fair dequeue, level 0 is the highest.
+//  - An order at level L is due once it has waited L * agingStep. Due orders compete with
+//    level 0 by deadline, so how long an order can be passed over is bounded by its level.
+//  - Otherwise the non-empty levels share dequeues by smooth weighted round robin,
+//    so a flood of high-priority orders cannot starve the lower levels.
+// Each level is a FIFO, which already is deadline order within the level. Enqueue and cancel
+// stay O(1) and picking the next order costs O(levels).
+// Methods are synchronized, so the scheduler can be used in concurrent mode too.
+class PriorityAgingScheduler implements OrderScheduler {
+    OrderList[] levels; // One FIFO per level
+    long[] weights; // Share of dequeues each level gets while it has orders
+    private final long[] credit; // Running credit of the weighted round robin
+    long agingStep; // Waiting time that promotes an order by one level, in clock units
+    LongSupplier clock; // Current time
+    ToIntFunction<Order> classifier; // Level of a new order
+    private int size;
+
+    // Urgent orders go to level 0 and standard ones to the lowest level,
+    // and each level gets half the weight of the one above it
+    public PriorityAgingScheduler(int levelCount, long agingMillis) {
+        this(defaultWeights(levelCount), TimeUnit.MILLISECONDS.toNanos(agingMillis), System::nanoTime,
+                order -> order.Precedence ? 0 : levelCount - 1);
+    }
+
+    public PriorityAgingScheduler(long[] weights, long agingStep, LongSupplier clock, ToIntFunction<Order> classifier) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("At least one level is needed");
+        }
+        levels = new OrderList[weights.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new OrderList();
+        }
+        this.weights = weights.clone();
+        this.credit = new long[weights.length];
+        this.agingStep = agingStep;
+        this.clock = clock;
+        this.classifier = classifier;
+    }
+
+    static long[] defaultWeights(int levelCount) {
+        long[] weights = new long[levelCount];
+        for (int i = 0; i < levelCount; i++) {
+            weights[i] = 1L << Math.min(levelCount - 1 - i, 30);
+        }
+        return weights;
+    }
+
+    public synchronized void add(Order order) {
+        if (contains(order.orderNum)) {
+            throw new IllegalArgumentException("Order " + order.orderNum + " is already queued");
+        }
+        int level = Math.max(0, Math.min(levels.length - 1, classifier.applyAsInt(order)));
+        order.enqueuedAt = clock.getAsLong();
+        levels[level].add(order);
+        size++;
+    }
+
+    public synchronized void addAll(List<Order> orders) {
+        for (Order order : orders) {
+            add(order);
+        }
+    }
+
+    public synchronized Order next() {
+        if (size == 0) {
+            return null;
+        }
+        long now = clock.getAsLong();
+
+        // Level 0 and every level whose head is due form the top class, served by deadline
+        int top = -1;
+        long topDeadline = Long.MAX_VALUE;
+        for (int level = 0; level < levels.length; level++) {
+            Node head = levels[level].head;
+            if (head == null) {
+                continue;
+            }
+            long deadline = head.order.enqueuedAt + level * agingStep;
+            if ((level == 0 || deadline - now <= 0) && (top < 0 || deadline - topDeadline < 0)) {
+                top = level;
+                topDeadline = deadline;
+            }
+        }
+
+        // Weighted round robin between the top class, which uses level 0's weight, and the other levels
+        long total = 0;
+        int chosen = -1;
+        for (int level = 0; level < levels.length; level++) {
+            if (level == 0 ? top < 0 : levels[level].head == null || level == top) {
+                continue;
+            }
+            credit[level] += weights[level];
+            total += weights[level];
+            if (chosen < 0 || credit[level] > credit[chosen]) {
+                chosen = level;
+            }
+        }
+        credit[chosen] -= total;
+        size--;
+        return levels[chosen == 0 ? top : chosen].removeFirst();
+    }
+
+    public synchronized Order remove(int orderNum) {
+        for (OrderList level : levels) {
+            Order order = level.removeById(orderNum);
+            if (order != null) {
+                size--;
+                return order;
+            }
+        }
+        return null;
+    }
+
+    public synchronized boolean contains(int orderNum) {
+        for (OrderList level : levels) {
+            if (level.orderExists(orderNum)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int queueCount() {
+        return levels.length;
+    }
+
+    public String queueName(int queue) {
+        return "Level" + queue;
+    }
+
+    public synchronized int queueSize(int queue) {
+        return levels[queue].size();
+    }
+
+    // Level by level, each in FIFO order. Iterates over a copy, so it is safe alongside changes.
+    public synchronized Iterator<Order> iterator() {
+        List<Order> orders = new ArrayList<>(size);
+        for (OrderList level : levels) {
+            for (Order order : level) {
+                orders.add(order);
+            }
+        }
+        return orders.iterator();
+    }
+
+    public synchronized void printQueues() {
+        for (int level = 0; level < levels.length; level++) {
+            System.out.println((level > 0 ? "\n" : "") + "Level " + level + " Queue:");
+            levels[level].printList();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package OrderManagerApp;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+// ProductStock class to manage stock levels of a product
+class ProductStock {
+    // Lets several threads change Amount with compare-and-set instead of a lock
+    private static final AtomicIntegerFieldUpdater<ProductStock> AMOUNT =
+            AtomicIntegerFieldUpdater.newUpdater(ProductStock.class, "Amount");
+
+    volatile int Amount; // Current stock amount
+    String productId; // Unique identifier for the product
+
+    public ProductStock(int Amount, String productId) {
+        this.Amount = Amount;
+        this.productId = productId;
+    }
+
+    // Add additional stock to the inventory
+    public void FillStock(int additionalQuantity) {
+        AMOUNT.getAndAdd(this, additionalQuantity);
+    }
+
+    // Check if the required stock is available
+    public boolean isAvailable(int NeededAmount) {
+        return Amount >= NeededAmount;
+    }
+
+    // Decrease stock if the required amount is available
+    public void DecreaseInventory(int NeededAmount) {
+        tryReserve(NeededAmount);
+    }
+
+    // Check and decrease the stock in one step, returns false if there is not enough or the
+    // amount is not above zero, so a reservation can never add stock
+    public boolean tryReserve(int NeededAmount) {
+        if (NeededAmount <= 0) {
+            return false;
+        }
+        while (true) {
+            int current = Amount;
+            if (current < NeededAmount) {
+                return false;
+            }
+            if (AMOUNT.compareAndSet(this, current, current - NeededAmount)) {
+                return true;
+            }
+        }
+    }
+
+    // Reserve stock for a group of orders with a single update. Orders are taken in the given
+    // order and each is accepted if it still fits, so the outcome matches reserving them one by one.
+    // Orders for zero or fewer units are never accepted.
+    public void reserveInOrder(Order[] batch, List<Integer> positions, BitSet accepted) {
+        reserveInOrder(batch, positions, accepted, false);
+    }
+
+    // As above, but when stopAtShortfall is true no order after the first one that does not fit is
+    // accepted, as when later orders have to queue up behind it on a backorder waitlist
+    public void reserveInOrder(Order[] batch, List<Integer> positions, BitSet accepted, boolean stopAtShortfall) {
+        while (true) {
+            int current = Amount;
+            int remaining = current;
+            boolean shortfall = false;
+            for (int pos : positions) {
+                int needed = batch[pos].orderQuantity;
+                if (needed > 0 && needed <= remaining && !shortfall) {
+                    remaining -= needed;
+                    accepted.set(pos);
+                } else {
+                    accepted.clear(pos);
+                    shortfall |= stopAtShortfall && needed > 0;
+                }
+            }
+            if (remaining == current || AMOUNT.compareAndSet(this, current, remaining)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package OrderManagerApp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sales and cancellation totals per product and per customer, updated as orders move so reports
+// never scan the history. Every update is a few LongAdder increments, so fulfillments do not
+// contend on a shared ranking; the top k products are picked on demand in O(products log k).
+// At most maxCustomers customers get totals of their own, later ones share one entry, so a
+// stream of new customer names cannot grow the map without bound.
+class SalesAggregates {
+    static final int DEFAULT_MAX_CUSTOMERS = 100_000;
+    static final String OTHER_CUSTOMERS = "(other customers)"; // Key of the entry shared past maxCustomers
+
+    private final int maxCustomers;
+    private final ConcurrentHashMap<String, SalesTotals> byProduct = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SalesTotals> byCustomer = new ConcurrentHashMap<>();
+    private volatile SalesTotals otherCustomers = new SalesTotals(OTHER_CUSTOMERS);
+
+    public SalesAggregates() {
+        this(DEFAULT_MAX_CUSTOMERS);
+    }
+
+    public SalesAggregates(int maxCustomers) {
+        this.maxCustomers = maxCustomers;
+    }
+
+    private SalesTotals product(Order order) {
+        return byProduct.computeIfAbsent(order.productId, SalesTotals::new);
+    }
+
+    private SalesTotals customer(Order order) {
+        SalesTotals totals = byCustomer.get(order.customerName);
+        if (totals != null) {
+            return totals;
+        }
+        if (byCustomer.size() >= maxCustomers) { // Racing threads may overshoot it by a few
+            return otherCustomers;
+        }
+        return byCustomer.computeIfAbsent(order.customerName, SalesTotals::new);
+    }
+
+    public void onPlaced(Order order) {
+        product(order).addPlaced(order.orderQuantity);
+        customer(order).addPlaced(order.orderQuantity);
+    }
+
+    public void onRejected(Order order) {
+        product(order).rejected.increment();
+        customer(order).rejected.increment();
+    }
+
+    public void onFulfilled(Order order) {
+        product(order).addFulfilled(order.orderQuantity);
+        customer(order).addFulfilled(order.orderQuantity);
+    }
+
+    public void onCancelled(Order order) {
+        product(order).addCancelled(order.orderQuantity);
+        customer(order).addCancelled(order.orderQuantity);
+    }
+
+    // Totals for a product, or null if it has had no orders
+    public SalesTotals product(String productId) {
+        return byProduct.get(productId);
+    }
+
+    // Totals for a customer, or null if they have placed no orders. Customers past maxCustomers
+    // are only counted under OTHER_CUSTOMERS.
+    public SalesTotals customer(String customerName) {
+        return customerName.equals(OTHER_CUSTOMERS) ? otherCustomers : byCustomer.get(customerName);
+    }
+
+    // The products with the most units fulfilled, most first, picked with a min-heap of k entries
+    public List<SalesTotals> topProducts(int k) {
+        List<SalesTotals> top = new ArrayList<>(Math.max(k, 0));
+        if (k <= 0) {
+            return top;
+        }
+        // Units are read once per product, so updates during the scan cannot reorder the heap
+        Comparator<Ranked> order = Comparator.comparingLong((Ranked ranked) -> ranked.units)
+                .thenComparing(ranked -> ranked.totals.key, Comparator.reverseOrder());
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(k + 1, order);
+        for (SalesTotals totals : byProduct.values()) {
+            heap.add(new Ranked(totals, totals.fulfilledUnits.sum()));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        while (!heap.isEmpty()) {
+            top.add(heap.poll().totals);
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    // A product's totals with its fulfilled units as of one read
+    private static class Ranked {
+        final SalesTotals totals;
+        final long units;
+
+        Ranked(SalesTotals totals, long units) {
+            this.totals = totals;
+            this.units = units;
+        }
+    }
+
+    public void clear() {
+        byProduct.clear();
+        byCustomer.clear();
+        otherCustomers = new SalesTotals(OTHER_CUSTOMERS);
+    }
+}
@@ -0,0 +1,47 @@
+package OrderManagerApp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Running totals for one product or customer
+class SalesTotals {
+    final String key; // Product ID or customer name
+    final LongAdder placed = new LongAdder(); // Orders accepted
+    final LongAdder placedUnits = new LongAdder();
+    final LongAdder rejected = new LongAdder(); // Orders turned down for lack of stock
+    final LongAdder fulfilled = new LongAdder();
+    final LongAdder fulfilledUnits = new LongAdder();
+    final LongAdder cancelled = new LongAdder();
+    final LongAdder cancelledUnits = new LongAdder();
+
+    SalesTotals(String key) {
+        this.key = key;
+    }
+
+    void addPlaced(int units) {
+        placed.increment();
+        placedUnits.add(units);
+    }
+
+    void addFulfilled(int units) {
+        fulfilled.increment();
+        fulfilledUnits.add(units);
+    }
+
+    void addCancelled(int units) {
+        cancelled.increment();
+        cancelledUnits.add(units);
+    }
+
+    // Share of accepted orders that were cancelled
+    public double cancelRate() {
+        long orders = placed.sum();
+        return orders == 0 ? 0.0 : (double) cancelled.sum() / orders;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: placed %d (%d units), fulfilled %d (%d units), cancelled %d (%d units, %.1f%%), rejected %d",
+                key, placed.sum(), placedUnits.sum(), fulfilled.sum(), fulfilledUnits.sum(), cancelled.sum(),
+                cancelledUnits.sum(), cancelRate() * 100, rejected.sum());
+    }
+}
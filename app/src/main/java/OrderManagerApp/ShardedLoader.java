@@ -0,0 +1,138 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+// Streams a command file through a ShardedOrderManager. This thread only parses each line far
+// enough to route it and collects the lines for each partition into batches; the partition's own
+// BulkLoader runs them there and keeps the counts, which are added up at the end. Lines the router
+// answers itself, cancels of orders that are not pending and orders whose ID is already pending,
+// are counted here.
+class ShardedLoader extends BulkLoader {
+    private static final int BATCH_BYTES = 4096; // Lines sent to a partition at once
+
+    final ShardedOrderManager shards;
+    private final byte[][] batches; // Lines routed to each partition and not sent yet
+    private final int[] batchLengths;
+    private final int[] batchChanges; // Expected change in pending orders from each batch
+
+    public ShardedLoader(ShardedOrderManager shards) {
+        super(null, null);
+        this.shards = shards;
+        int count = shards.partitions.length;
+        batches = new byte[count][BATCH_BYTES + 1024];
+        batchLengths = new int[count];
+        batchChanges = new int[count];
+    }
+
+    private void route(ShardedOrderManager.Partition partition, byte[] buf, int start, int end, int change) {
+        int index = partition.index;
+        int length = batchLengths[index];
+        int needed = length + end - start + 1;
+        if (needed > batches[index].length) {
+            batches[index] = Arrays.copyOf(batches[index], Math.max(needed, batches[index].length * 2));
+        }
+        System.arraycopy(buf, start, batches[index], length, end - start);
+        batches[index][needed - 1] = '\n';
+        batchLengths[index] = needed;
+        batchChanges[index] += change;
+        partition.routedChange.addAndGet(change);
+        if (needed >= BATCH_BYTES) {
+            send(partition);
+        }
+    }
+
+    private void send(ShardedOrderManager.Partition partition) {
+        int index = partition.index;
+        if (batchLengths[index] > 0) {
+            partition.submit(batches[index], batchLengths[index], batchChanges[index]);
+            batches[index] = new byte[batches[index].length]; // The partition owns the sent one
+            batchLengths[index] = 0;
+            batchChanges[index] = 0;
+        }
+    }
+
+    @Override
+    public void load(Path file) throws IOException {
+        long start = System.nanoTime();
+        try {
+            super.load(file);
+            for (ShardedOrderManager.Partition partition : shards.partitions) {
+                send(partition);
+            }
+            shards.sync();
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+        for (ShardedOrderManager.Partition partition : shards.partitions) {
+            addCounts(partition.loader);
+        }
+    }
+
+    @Override
+    Outcome execute(byte[] buf, int start, int end) {
+        end = lineEnd(buf, start, end);
+        if (isSkipped(buf, start, end)) {
+            return Outcome.SKIPPED;
+        }
+        lines++;
+        int fields = split(buf, start, end);
+        try {
+            switch (fields == 0 ? 0 : buf[start]) {
+                case 'R':
+                    if (fields != 3) {
+                        break;
+                    }
+                    parsePositive(buf, 2);
+                    route(shards.partitionOf(string(buf, 1)), buf, start, end, 0);
+                    return Outcome.ROUTED;
+                case 'O':
+                    if (fields != 6) {
+                        break; // Partitions do not expire orders, so a time to live would be ignored
+                    }
+                    parsePositive(buf, 2);
+                    parseBoolean(buf, 5); // Checked here so a partition never drops an order it was routed
+                    ShardedOrderManager.Partition partition = shards.partitionOf(string(buf, 1));
+                    int orderNum = parseInt(buf, 4);
+                    ShardedOrderManager.Partition holder = shards.owner(orderNum);
+                    if (holder != null) {
+                        send(holder); // Lines still batched for it may release the ID
+                    }
+                    if (!shards.claim(orderNum, partition)) {
+                        ordersRejected++;
+                        return Outcome.REJECTED;
+                    }
+                    route(partition, buf, start, end, 1);
+                    return Outcome.ROUTED;
+                case 'F':
+                    if (fields != 1) {
+                        break;
+                    }
+                    route(shards.fulfillTarget(), buf, start, end, -1);
+                    return Outcome.ROUTED;
+                case 'C':
+                    if (fields != 2) {
+                        break;
+                    }
+                    ShardedOrderManager.Partition owner = shards.owner(parseInt(buf, 1));
+                    if (owner == null) {
+                        cancelMisses++;
+                        return Outcome.NOT_FOUND;
+                    }
+                    route(owner, buf, start, end, -1);
+                    return Outcome.ROUTED;
+            }
+        } catch (NumberFormatException e) {
+            // Counted as malformed below
+        }
+        malformed++;
+        return Outcome.MALFORMED;
+    }
+
+    @Override
+    public void printSummary() {
+        System.out.println("Shards: " + shards.partitions.length);
+        printSummary(shards.pendingCount(), shards.topProducts(5));
+    }
+}
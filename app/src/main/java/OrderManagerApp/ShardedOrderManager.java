@@ -0,0 +1,307 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.LockSupport;
+
+// Order managers partitioned by product. A product ID hashes to one of N partitions, each with
+// its own inventory holding the stock of its products, its own queues and history, and a thread
+// that alone runs its commands from an MpscRing inbox, so the command path takes no locks and
+// partitions never wait on each other. The router keeps order IDs unique across partitions: it
+// remembers which partition holds each pending order, sends cancels there and rejects an order
+// whose ID is already pending. A fulfill goes to the partition with the most pending orders, so
+// urgent orders go first within a partition but not across partitions.
+class ShardedOrderManager implements Closeable {
+    static final int INBOX_CAPACITY = 1 << 14;
+    private static final int IDLE_SPINS = 200; // Empty polls before a partition thread parks
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    class Partition implements OrderEventListener {
+        final int index;
+        final Inventory inventory;
+        final OrderManager orderManager;
+        final BulkLoader loader; // Runs routed command lines, partition thread only
+        private final MpscRing<Runnable> inbox = new MpscRing<>(INBOX_CAPACITY);
+        private final Thread thread;
+        private final OrderEventListener events; // The manager's own listener, still told of every event
+        private volatile boolean parked;
+        private volatile boolean running = true;
+        private volatile int pending; // Pending orders after the last command, for routing fulfills
+        final AtomicInteger routedChange = new AtomicInteger(); // Expected change in pending from commands not yet run
+
+        Partition(int index, Inventory inventory, OrderManager orderManager) {
+            this.index = index;
+            this.inventory = inventory;
+            this.orderManager = orderManager;
+            loader = new BulkLoader(inventory, orderManager);
+            events = orderManager.events;
+            orderManager.events = this;
+            pending = orderManager.scheduler.size();
+            thread = new Thread(this::run, "order-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        // Queue a command for the partition thread, waiting while the inbox is full
+        void execute(Runnable command) {
+            while (!inbox.offer(command)) {
+                LockSupport.unpark(thread);
+                Thread.yield();
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        // Run work on the partition thread and complete the future with its result
+        <T> CompletableFuture<T> call(Supplier<T> work) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            execute(() -> {
+                try {
+                    result.complete(work.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        }
+
+        // Queue newline-terminated command lines whose effect on the pending count was added to
+        // routedChange as change when they were routed
+        void submit(byte[] lines, int length, int change) {
+            execute(() -> {
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (lines[i] == '\n') {
+                        loader.execute(lines, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                routedChange.addAndGet(-change);
+            });
+        }
+
+        private void run() {
+            int idle = 0;
+            while (true) {
+                Runnable command = inbox.poll();
+                if (command == null) {
+                    if (!running) {
+                        return;
+                    }
+                    if (++idle < IDLE_SPINS) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    parked = true;
+                    command = inbox.poll(); // A producer may have missed the flag
+                    if (command == null) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                        parked = false;
+                        continue;
+                    }
+                    parked = false;
+                }
+                idle = 0;
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Shard " + index + " command failed: " + e);
+                }
+                pending = orderManager.scheduler.size();
+            }
+        }
+
+        // Forget the owner of an order that is no longer pending
+        public void onEvent(OrderEvent event, Order order, int orderId) {
+            if (event == OrderEvent.REJECTED || event == OrderEvent.FULFILLED || event == OrderEvent.CANCELLED
+                    || event == OrderEvent.EXPIRED) {
+                owners.remove(orderId, this);
+            }
+            events.onEvent(event, order, orderId);
+        }
+    }
+
+    final Partition[] partitions;
+    private final Map<Integer, Partition> owners = new ConcurrentHashMap<>(); // Partition of each pending order
+    private final AtomicInteger fulfillCursor = new AtomicInteger(); // Breaks ties between partitions in turn
+
+    // Take over one inventory and order manager per partition, restored already if they were journaled.
+    // From here on they may only be used through this router.
+    public ShardedOrderManager(Inventory[] inventories, OrderManager[] orderManagers) {
+        if (inventories.length == 0 || inventories.length != orderManagers.length) {
+            throw new IllegalArgumentException("Need one inventory and one order manager per partition");
+        }
+        partitions = new Partition[inventories.length];
+        for (int i = 0; i < partitions.length; i++) {
+            Partition partition = new Partition(i, inventories[i], orderManagers[i]);
+            partitions[i] = partition;
+            for (Order order : orderManagers[i].scheduler) {
+                owners.put(order.orderNum, partition);
+            }
+            for (Integer orderNum : orderManagers[i].inFlight.keySet()) {
+                owners.put(orderNum, partition);
+            }
+            if (orderManagers[i].backorders != null) {
+                for (Order order : orderManagers[i].backorders.orders()) {
+                    owners.put(order.orderNum, partition);
+                }
+            }
+        }
+        for (Partition partition : partitions) {
+            partition.thread.start();
+        }
+    }
+
+    public Partition partitionOf(String productId) {
+        int hash = productId.hashCode();
+        return partitions[Math.floorMod(hash ^ (hash >>> 16), partitions.length)];
+    }
+
+    // The partition holding a pending order, or null if no partition does
+    public Partition owner(int orderNum) {
+        return owners.get(orderNum);
+    }
+
+    // Record that an order is going to a partition, returns false if its ID is already pending.
+    // If a partition owns the ID, this waits until it has run every command sent to it so far,
+    // as one of them may release the ID, so the outcome is the same as in a sequential run.
+    boolean claim(int orderNum, Partition partition) {
+        if (owners.putIfAbsent(orderNum, partition) == null) {
+            return true;
+        }
+        Partition owner = owners.get(orderNum);
+        if (owner != null) {
+            owner.call(() -> null).join();
+        }
+        return owners.putIfAbsent(orderNum, partition) == null;
+    }
+
+    // The partition expected to have the most pending orders once the commands already sent to it have run
+    public Partition fulfillTarget() {
+        int start = fulfillCursor.getAndIncrement();
+        Partition best = partitions[Math.floorMod(start, partitions.length)];
+        int most = 0;
+        for (int i = 0; i < partitions.length; i++) {
+            Partition partition = partitions[Math.floorMod(start + i, partitions.length)];
+            int expected = partition.pending + partition.routedChange.get();
+            if (expected > most) {
+                best = partition;
+                most = expected;
+            }
+        }
+        return best;
+    }
+
+    public CompletableFuture<Void> addStock(String productId, int amount) {
+        Partition partition = partitionOf(productId);
+        return partition.call(() -> {
+            partition.inventory.addStock(productId, amount);
+            return null;
+        });
+    }
+
+    // Completes with false if the order was rejected for lack of stock or because its ID is pending
+    public CompletableFuture<Boolean> enqueueOrder(Order order) {
+        Partition partition = partitionOf(order.productId);
+        if (!claim(order.orderNum, partition)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        partition.routedChange.incrementAndGet();
+        return partition.call(() -> {
+            partition.routedChange.decrementAndGet();
+            return partition.orderManager.enqueueOrder(order);
+        });
+    }
+
+    public CompletableFuture<Boolean> cancelOrder(int orderId) {
+        Partition partition = owner(orderId);
+        if (partition == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return partition.call(() -> partition.orderManager.cancelOrder(orderId));
+    }
+
+    // Completes with the fulfilled order, or null if the chosen partition had none
+    public CompletableFuture<Order> fulfillOrder() {
+        Partition partition = fulfillTarget();
+        partition.routedChange.decrementAndGet();
+        return partition.call(() -> {
+            partition.routedChange.incrementAndGet();
+            return partition.orderManager.fulfillOrder();
+        });
+    }
+
+    // Wait until every partition has run all the commands sent to it so far
+    public void sync() {
+        List<CompletableFuture<Object>> done = new ArrayList<>(partitions.length);
+        for (Partition partition : partitions) {
+            done.add(partition.call(() -> null));
+        }
+        for (CompletableFuture<Object> future : done) {
+            future.join();
+        }
+    }
+
+    public int pendingCount() {
+        int pending = 0;
+        for (Partition partition : partitions) {
+            pending += partition.call(() -> partition.orderManager.scheduler.size()).join();
+        }
+        return pending;
+    }
+
+    public void printQueues() {
+        for (Partition partition : partitions) {
+            System.out.println("=== Shard " + partition.index + " ===");
+            partition.call(() -> {
+                partition.orderManager.printQueues();
+                return null;
+            }).join();
+        }
+    }
+
+    public void showOrderHistory() {
+        for (Partition partition : partitions) {
+            System.out.println("=== Shard " + partition.index + " ===");
+            partition.call(() -> {
+                partition.orderManager.showOrderHistory();
+                return null;
+            }).join();
+        }
+    }
+
+    // The products with the most units fulfilled across all partitions, most first.
+    // Each product lives in one partition, so the top k overall are among each partition's top k.
+    public List<SalesTotals> topProducts(int k) {
+        List<SalesTotals> top = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.orderManager.sales != null) {
+                top.addAll(partition.orderManager.sales.topProducts(k));
+            }
+        }
+        top.sort(Comparator.comparingLong((SalesTotals totals) -> -totals.fulfilledUnits.sum()).thenComparing(totals -> totals.key));
+        return top.subList(0, Math.min(k, top.size()));
+    }
+
+    // Run the commands already queued, then stop the partition threads
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.running = false;
+            LockSupport.unpark(partition.thread);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
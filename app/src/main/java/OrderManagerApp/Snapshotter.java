@@ -0,0 +1,360 @@
+package OrderManagerApp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32;
+
+// Point-in-time binary snapshots of the inventory, queues and history, so a restart only replays
+// the journal segments written after the newest snapshot. Product IDs and customer names are
+// stored once in a dictionary and referenced by index. Layout:
+//   int magic, int version, long segment
+//   int dictionary size, then each string as an unsigned short length and UTF-8 bytes
+//   int product count, then (int product, int amount) per product
+//   pending orders in scheduler order, then backordered orders, each as an int count followed by
+//     (int orderNum, int quantity, byte priority, int product, int customer, long timeToLiveMillis)
+//   finalized and cancelled history, each as long archived entries, long archive length, then an
+//     int count and (int orderNum, int quantity, byte priority, int product, int customer) per
+//     entry still in memory
+//   long CRC32 of everything before it
+// Snapshot N holds the state after every record of the segments before N. Once it is on disk
+// those segments and any older snapshots are deleted. History archives are append-only files
+// next to the snapshots, and a snapshot records how much of each belongs to it.
+// Changes only pause while the journal rolls over and the histories are marked. The stock, queues
+// and waitlists are not copied from the live state but rebuilt on the side, from the previous
+// snapshot and the segments since.
+class Snapshotter implements Closeable {
+    private static final int MAGIC = 0x4F4D5353; // "OMSS"
+    private static final int VERSION = 1;
+    static final String FINALIZED_ARCHIVE = "history-fulfilled.dat";
+    static final String CANCELLED_ARCHIVE = "history-cancelled.dat";
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    Path dir;
+    Inventory inventory;
+    OrderManager orderManager;
+    Journal journal;
+    long snapshotEvery; // Journal records between automatic snapshots, 0 turns them off
+    private final ScheduledExecutorService worker; // Watches the journal and writes automatic snapshots
+
+    // State captured for one snapshot
+    private static class Capture {
+        long segment;
+        List<ProductStock> stock = new ArrayList<>();
+        List<Order> pending = new ArrayList<>();
+        List<Order> backordered = Collections.emptyList();
+        OrderHistory.Mark finalized;
+        OrderHistory.Mark cancelled;
+    }
+
+    public Snapshotter(Path dir, Inventory inventory, OrderManager orderManager, Journal journal, long snapshotEvery) {
+        this.dir = dir;
+        this.inventory = inventory;
+        this.orderManager = orderManager;
+        this.journal = journal;
+        this.snapshotEvery = snapshotEvery;
+        if (snapshotEvery > 0) {
+            worker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            worker.scheduleWithFixedDelay(this::snapshotIfDue, 1, 1, TimeUnit.SECONDS);
+        } else {
+            worker = null;
+        }
+    }
+
+    private void snapshotIfDue() {
+        if (journal.pendingRecords < snapshotEvery) {
+            return;
+        }
+        try {
+            takeSnapshot();
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Snapshot failed: " + e.getMessage());
+        }
+    }
+
+    // Roll the journal and mark the histories while changes are paused, then sync the old segment
+    // and the archives, rebuild the rest of the state, write the file and delete what it replaces
+    // while changes carry on
+    public synchronized void takeSnapshot() throws IOException {
+        Capture capture = new Capture();
+        journal.stateLock.writeLock().lock();
+        try {
+            capture.finalized = orderManager.finalizedOrders.mark();
+            capture.cancelled = orderManager.cancelledOrders.mark();
+            capture.segment = journal.rotate();
+        } finally {
+            journal.stateLock.writeLock().unlock();
+        }
+        journal.closeRotated();
+        orderManager.finalizedOrders.syncArchive();
+        orderManager.cancelledOrders.syncArchive();
+        rebuild(capture);
+        write(capture);
+        compact(capture.segment);
+    }
+
+    // Rebuild the stock, queues and waitlists as of the start of capture.segment into a private
+    // inventory and order manager, from the previous snapshot and the segments after it. It holds
+    // a second copy of the pending orders while it runs. Orders being fulfilled are pending there,
+    // as their completion is in a later segment.
+    private void rebuild(Capture capture) throws IOException {
+        Inventory stock = new Inventory();
+        OrderManager replayed = new OrderManager(stock);
+        replayed.events = NoOpEventSink.INSTANCE;
+        replayed.backorders = new BackorderBook(1);
+        replayed.finalizedOrders = new OrderHistory("Fulfilled", 1, false); // The marks above stand for the histories
+        replayed.cancelledOrders = new OrderHistory("Cancelled", 1, false);
+        long first = load(dir, stock, replayed, false);
+        for (long segment : Journal.listSegments(dir)) {
+            if (segment >= first && segment < capture.segment) {
+                Journal.replay(Journal.segmentFile(dir, segment), stock, replayed);
+            }
+        }
+        capture.stock = stock.productRecords;
+        for (Order order : replayed.scheduler) {
+            capture.pending.add(order);
+        }
+        capture.backordered = replayed.backorders.orders();
+    }
+
+    private void write(Capture capture) throws IOException {
+        // First pass collects the dictionary
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (ProductStock item : capture.stock) {
+            code(item.productId, codes, dictionary);
+        }
+        for (Order order : capture.pending) {
+            codeOrder(order, codes, dictionary);
+        }
+        for (Order order : capture.backordered) {
+            codeOrder(order, codes, dictionary);
+        }
+        for (Order order : capture.finalized.retained) {
+            codeOrder(order, codes, dictionary);
+        }
+        for (Order order : capture.cancelled.retained) {
+            codeOrder(order, codes, dictionary);
+        }
+
+        Path tmp = dir.resolve(PREFIX + capture.segment + SUFFIX + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(capture.segment);
+            out.writeInt(dictionary.size());
+            for (String value : dictionary) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(capture.stock.size());
+            for (ProductStock item : capture.stock) {
+                out.writeInt(codes.get(item.productId));
+                out.writeInt(item.Amount);
+            }
+            writeOrders(out, capture.pending, codes, true);
+            writeOrders(out, capture.backordered, codes, true);
+            writeHistory(out, capture.finalized, codes);
+            writeHistory(out, capture.cancelled, codes);
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, snapshotFile(dir, capture.segment), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void code(String value, Map<String, Integer> codes, List<String> dictionary) {
+        if (!codes.containsKey(value)) {
+            codes.put(value, dictionary.size());
+            dictionary.add(value);
+        }
+    }
+
+    private static void codeOrder(Order order, Map<String, Integer> codes, List<String> dictionary) {
+        code(order.productId, codes, dictionary);
+        code(order.customerName, codes, dictionary);
+    }
+
+    private static void writeHistory(DataOutputStream out, OrderHistory.Mark mark,
+                                     Map<String, Integer> codes) throws IOException {
+        out.writeLong(mark.archivedCount);
+        out.writeLong(mark.archivedBytes);
+        writeOrders(out, mark.retained, codes, false);
+    }
+
+    private static void writeOrders(DataOutputStream out, List<Order> orders, Map<String, Integer> codes,
+                                    boolean withTimeToLive) throws IOException {
+        out.writeInt(orders.size());
+        for (Order order : orders) {
+            out.writeInt(order.orderNum);
+            out.writeInt(order.orderQuantity);
+            out.writeByte(order.Precedence ? 1 : 0);
+            out.writeInt(codes.get(order.productId));
+            out.writeInt(codes.get(order.customerName));
+            if (withTimeToLive) {
+                out.writeLong(order.timeToLiveMillis);
+            }
+        }
+    }
+
+    // Delete the journal segments and snapshots that the snapshot for segment replaces
+    private void compact(long segment) throws IOException {
+        for (long old : Journal.listSegments(dir)) {
+            if (old < segment) {
+                Files.deleteIfExists(Journal.segmentFile(dir, old));
+            }
+        }
+        for (long old : listSnapshots(dir)) {
+            if (old < segment) {
+                Files.deleteIfExists(snapshotFile(dir, old));
+            }
+        }
+    }
+
+    static Path snapshotFile(Path dir, long segment) {
+        return dir.resolve(PREFIX + segment + SUFFIX);
+    }
+
+    // Segments of the snapshots in a directory, oldest first
+    static List<Long> listSnapshots(Path dir) throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                try {
+                    snapshots.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    // Load the newest snapshot into an empty inventory and order manager, whose histories must
+    // already archive to the files in dir. Returns the first journal segment still to replay, or 0
+    // if there is no snapshot.
+    static long load(Path dir, Inventory inventory, OrderManager orderManager) throws IOException {
+        return load(dir, inventory, orderManager, true);
+    }
+
+    // As above, leaving the histories alone unless withHistory is true
+    private static long load(Path dir, Inventory inventory, OrderManager orderManager, boolean withHistory)
+            throws IOException {
+        List<Long> snapshots = listSnapshots(dir);
+        if (snapshots.isEmpty()) {
+            if (withHistory) {
+                orderManager.finalizedOrders.restore(0, 0);
+                orderManager.cancelledOrders.restore(0, 0);
+            }
+            return 0;
+        }
+        Path file = snapshotFile(dir, snapshots.get(snapshots.size() - 1));
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            long segment = in.readLong();
+            String[] dictionary = new String[in.readInt()];
+            byte[] bytes = new byte[0xFFFF];
+            for (int i = 0; i < dictionary.length; i++) {
+                int length = in.readUnsignedShort();
+                in.readFully(bytes, 0, length);
+                dictionary[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            int products = in.readInt();
+            for (int i = 0; i < products; i++) {
+                String productId = dictionary[in.readInt()];
+                inventory.restoreStock(productId, in.readInt());
+            }
+            int pending = in.readInt();
+            for (int i = 0; i < pending; i++) {
+                orderManager.scheduler.add(readOrder(in, dictionary, "Awaiting", true));
+            }
+            int backordered = in.readInt();
+            for (int i = 0; i < backordered; i++) {
+                orderManager.restoreBackorder(readOrder(in, dictionary, OrderStatus.BACKORDERED.label, true));
+            }
+            readHistory(in, dictionary, withHistory ? orderManager.finalizedOrders : null);
+            readHistory(in, dictionary, withHistory ? orderManager.cancelledOrders : null);
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            return segment;
+        }
+    }
+
+    // Restore a history, or only read past it if history is null
+    private static void readHistory(DataInputStream in, String[] dictionary, OrderHistory history) throws IOException {
+        long archivedCount = in.readLong();
+        long archivedBytes = in.readLong();
+        if (history != null) {
+            history.restore(archivedCount, archivedBytes);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Order order = readOrder(in, dictionary, history != null ? history.status : null, false);
+            if (history != null) {
+                history.add(order);
+            }
+        }
+    }
+
+    private static Order readOrder(DataInputStream in, String[] dictionary, String status, boolean withTimeToLive)
+            throws IOException {
+        int orderNum = in.readInt();
+        int quantity = in.readInt();
+        boolean priority = in.readByte() == 1;
+        String productId = dictionary[in.readInt()];
+        Order order = new Order(productId, priority, quantity, dictionary[in.readInt()], orderNum);
+        order.status = status;
+        if (withTimeToLive) {
+            order.timeToLiveMillis = in.readLong();
+        }
+        return order;
+    }
+
+    // Stop automatic snapshots, write a final one if anything changed, and close the journal
+    @Override
+    public void close() throws IOException {
+        if (worker != null) {
+            worker.shutdown();
+            try {
+                worker.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (journal.pendingRecords > 0) {
+                takeSnapshot();
+            }
+        } finally {
+            journal.close();
+            orderManager.finalizedOrders.close();
+            orderManager.cancelledOrders.close();
+        }
+    }
+}
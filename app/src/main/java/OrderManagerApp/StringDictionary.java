@@ -0,0 +1,40 @@
+package OrderManagerApp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Strings stored once and referred to by a dense int code, shared by the compact order stores.
+// Codes are never reused, so the dictionary grows with the number of distinct strings.
+class StringDictionary {
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64]; // Code -> string
+    private int size;
+
+    // Code of a string, adding it if it is new
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code == null) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size] = value;
+                code = size++;
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
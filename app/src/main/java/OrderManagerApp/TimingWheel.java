@@ -0,0 +1,128 @@
+package OrderManagerApp;
+
+import java.util.function.IntConsumer;
+
+// Hierarchical timing wheel keyed by order number. Level 0 has one slot per tick and each level
+// above has slots 64 times as wide. A timeout goes in the lowest level whose span covers it and
+// moves down a level each time the wheel below completes a turn, so scheduling, cancelling and
+// expiring are O(1) however many timeouts are pending. Not thread-safe.
+class TimingWheel {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 5; // 64^5 ticks, timeouts further out are parked in the top level
+
+    static final class Timeout {
+        final int orderNum;
+        final long deadline; // Tick it expires at
+        Timeout prev;
+        Timeout next;
+        int level;
+        int slot;
+
+        Timeout(int orderNum, long deadline) {
+            this.orderNum = orderNum;
+            this.deadline = deadline;
+        }
+    }
+
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private long now; // Last tick processed
+    private int size;
+
+    public TimingWheel(long startTick) {
+        now = startTick;
+    }
+
+    public long currentTick() {
+        return now;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Expire orderNum at the deadline tick, or on the next tick if that has passed
+    public Timeout schedule(int orderNum, long deadline) {
+        Timeout timeout = new Timeout(orderNum, Math.max(deadline, now + 1));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public void cancel(Timeout timeout) {
+        unlink(timeout);
+        size--;
+    }
+
+    // Process every tick up to and including tick, passing each expired order number to expired
+    public void advance(long tick, IntConsumer expired) {
+        while (now < tick) {
+            now++;
+            int slot = (int) now & MASK;
+            if (slot == 0) {
+                cascade(1);
+            }
+            Timeout timeout = slots[0][slot];
+            slots[0][slot] = null;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                size--;
+                expired.accept(timeout.orderNum);
+                timeout = next;
+            }
+        }
+    }
+
+    // Move the slot of a level that has come due to the levels below, then do the same one level up
+    // if this level has completed a turn
+    private void cascade(int level) {
+        int slot = (int) (now >>> (BITS * level)) & MASK;
+        Timeout timeout = slots[level][slot];
+        slots[level][slot] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+        if (slot == 0 && level + 1 < LEVELS) {
+            cascade(level + 1);
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        long at = timeout.deadline;
+        if (level == LEVELS - 1) {
+            at = Math.min(at, now + (1L << (BITS * LEVELS)) - 1); // Placed again when its slot comes due
+        }
+        int slot = (int) (at >>> (BITS * level)) & MASK;
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = slots[level][slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        slots[level][slot] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+    }
+}
@@ -0,0 +1,94 @@
+package OrderManagerApp;
+
+import java.util.*;
+
+// The original policy: urgent orders always go first and each queue is FIFO
+class TwoQueueScheduler implements OrderScheduler {
+    OrderQueue urgentQueue; // Queue for priority orders
+    OrderQueue standardQueue; // Queue for regular orders
+
+    public TwoQueueScheduler(boolean concurrent) {
+        this(concurrent ? new ConcurrentOrderList() : new OrderList(),
+                concurrent ? new ConcurrentOrderList() : new OrderList());
+    }
+
+    public TwoQueueScheduler(OrderQueue urgentQueue, OrderQueue standardQueue) {
+        this.urgentQueue = urgentQueue;
+        this.standardQueue = standardQueue;
+    }
+
+    public void add(Order order) {
+        if ((order.Precedence ? standardQueue : urgentQueue).orderExists(order.orderNum)) {
+            throw new IllegalArgumentException("Order " + order.orderNum + " is already queued");
+        }
+        (order.Precedence ? urgentQueue : standardQueue).add(order);
+    }
+
+    public void addAll(List<Order> orders) {
+        List<Order> urgent = new ArrayList<>();
+        List<Order> standard = new ArrayList<>();
+        for (Order order : orders) {
+            (order.Precedence ? urgent : standard).add(order);
+        }
+        urgentQueue.addAll(urgent);
+        standardQueue.addAll(standard);
+    }
+
+    public Order next() {
+        Order order = urgentQueue.removeFirst();
+        if (order == null) {
+            order = standardQueue.removeFirst();
+        }
+        return order;
+    }
+
+    public Order remove(int orderNum) {
+        Order order = urgentQueue.removeById(orderNum);
+        if (order == null) {
+            order = standardQueue.removeById(orderNum);
+        }
+        return order;
+    }
+
+    public boolean contains(int orderNum) {
+        return urgentQueue.orderExists(orderNum) || standardQueue.orderExists(orderNum);
+    }
+
+    public int size() {
+        return urgentQueue.size() + standardQueue.size();
+    }
+
+    public int queueCount() {
+        return 2;
+    }
+
+    public String queueName(int queue) {
+        return queue == 0 ? "Urgent" : "Standard";
+    }
+
+    public int queueSize(int queue) {
+        return (queue == 0 ? urgentQueue : standardQueue).size();
+    }
+
+    // Urgent orders first, then standard ones
+    public Iterator<Order> iterator() {
+        Iterator<Order> urgent = urgentQueue.iterator();
+        Iterator<Order> standard = standardQueue.iterator();
+        return new Iterator<Order>() {
+            public boolean hasNext() {
+                return urgent.hasNext() || standard.hasNext();
+            }
+
+            public Order next() {
+                return urgent.hasNext() ? urgent.next() : standard.next();
+            }
+        };
+    }
+
+    public void printQueues() {
+        System.out.println("Urgent Queue:");
+        urgentQueue.printList();
+        System.out.println("\nStandard Queue:");
+        standardQueue.printList();
+    }
+}
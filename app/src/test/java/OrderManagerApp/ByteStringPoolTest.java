@@ -0,0 +1,28 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ByteStringPoolTest {
+    // Strings past the cap are still decoded, just not pooled
+    @Test
+    void stopsPoolingAtTheCap() {
+        ByteStringPool pool = new ByteStringPool(100);
+        String first = intern(pool, "customer0");
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("customer" + i, intern(pool, "customer" + i));
+        }
+        assertEquals(100, pool.size());
+        assertSame(first, intern(pool, "customer0"));
+        assertNotSame(intern(pool, "customer500"), intern(pool, "customer500"));
+    }
+
+    private static String intern(ByteStringPool pool, String value) {
+        byte[] bytes = ("," + value + ",").getBytes(StandardCharsets.UTF_8);
+        return pool.intern(bytes, 1, bytes.length - 2);
+    }
+}
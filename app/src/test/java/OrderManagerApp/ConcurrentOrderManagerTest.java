@@ -0,0 +1,148 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentOrderManagerTest {
+    private static final int THREADS = 4;
+    private static final int OPS_PER_THREAD = 5_000;
+    private static final int PRODUCTS = 8;
+    private static final int INITIAL_STOCK = 2_000;
+
+    // Threads racing to reserve, cancel, fulfill and restock must neither create nor lose stock,
+    // and every accepted order must end up in exactly one place
+    @Test
+    void reserveCancelFulfillConservesStockAndOrders() throws Exception {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = new OrderManager(inventory, true);
+        orderManager.events = NoOpEventSink.INSTANCE;
+        for (int p = 0; p < PRODUCTS; p++) {
+            inventory.addStock("P" + p, INITIAL_STOCK);
+        }
+        AtomicInteger ids = new AtomicInteger();
+        AtomicLong restocked = new AtomicLong();
+        Set<Order> accepted = ConcurrentHashMap.newKeySet();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            workers.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    int roll = random.nextInt(100);
+                    if (roll < 50) {
+                        int orderNum = ids.incrementAndGet();
+                        int quantity = 1 + random.nextInt(5);
+                        Order order = new Order("P" + random.nextInt(PRODUCTS), random.nextBoolean(), quantity,
+                                "c" + random.nextInt(20), orderNum);
+                        if (orderManager.enqueueOrder(order)) {
+                            accepted.add(order);
+                        }
+                    } else if (roll < 55) {
+                        // Reuse a recent number, accepted only once the first order with it has left the queue
+                        Order order = new Order("P0", false, 1, "dup", Math.max(1, ids.get() - random.nextInt(4)));
+                        if (orderManager.enqueueOrder(order)) {
+                            accepted.add(order);
+                        }
+                    } else if (roll < 75) {
+                        orderManager.cancelOrder(1 + random.nextInt(Math.max(1, ids.get())));
+                    } else if (roll < 95) {
+                        orderManager.fulfillOrder();
+                    } else {
+                        int amount = 1 + random.nextInt(50);
+                        inventory.addStock("P" + random.nextInt(PRODUCTS), amount);
+                        restocked.addAndGet(amount);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        Set<Integer> pendingNums = new HashSet<>();
+        Set<Order> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long pendingUnits = 0;
+        for (Order order : orderManager.scheduler) {
+            assertTrue(pendingNums.add(order.orderNum), "Order " + order.orderNum + " is queued twice");
+            assertTrue(seen.add(order), "Order " + order.orderNum + " seen twice");
+            pendingUnits += order.orderQuantity;
+        }
+        long fulfilledUnits = 0;
+        for (Order order : history(orderManager, "Fulfilled")) {
+            assertTrue(seen.add(order), "Order " + order.orderNum + " seen twice");
+            fulfilledUnits += order.orderQuantity;
+        }
+        for (Order order : history(orderManager, "Cancelled")) {
+            assertTrue(seen.add(order), "Order " + order.orderNum + " seen twice");
+        }
+        assertEquals(accepted.size(), seen.size());
+        assertTrue(accepted.containsAll(seen));
+
+        long stock = 0;
+        for (int p = 0; p < PRODUCTS; p++) {
+            stock += inventory.lookup("P" + p).Amount;
+        }
+        assertEquals((long) PRODUCTS * INITIAL_STOCK + restocked.get(), stock + pendingUnits + fulfilledUnits);
+    }
+
+    // Cancelling almost every order must not leave the FIFO full of tombstones
+    @Test
+    void cancelledOrdersAreSweptFromTheFifo() {
+        ConcurrentOrderList list = new ConcurrentOrderList();
+        for (int i = 1; i <= 100_000; i++) {
+            list.add(new Order("P", false, 1, "c", i));
+            if (i % 100 != 0) {
+                assertTrue(list.removeById(i) != null);
+            }
+        }
+        assertEquals(1_000, list.size());
+        assertTrue(list.queue.size() <= 2 * 1_024 + list.size(), "FIFO holds " + list.queue.size() + " entries");
+        int expected = 100;
+        for (Order order : list) {
+            assertEquals(expected, order.orderNum);
+            expected += 100;
+        }
+        for (int i = 100; i <= 100_000; i += 100) {
+            assertEquals(i, list.removeFirst().orderNum);
+        }
+        assertNull(list.removeFirst());
+        assertFalse(list.orderExists(100));
+    }
+
+    private static List<Order> history(OrderManager orderManager, String status) throws IOException {
+        List<Order> orders = new ArrayList<>();
+        long cursor = 0;
+        HistoryPage page;
+        do {
+            page = orderManager.historyPage(status, cursor, Integer.MIN_VALUE, Integer.MAX_VALUE, 1_000);
+            orders.addAll(page.orders);
+            cursor = page.nextCursor;
+        } while (page.hasMore);
+        return orders;
+    }
+}
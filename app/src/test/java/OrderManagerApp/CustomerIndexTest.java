@@ -0,0 +1,55 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CustomerIndexTest {
+    // An order number used again after the first order was finalized gets an entry of its own
+    @Test
+    void reusedOrderNumbersKeepBothOrders() throws IOException {
+        OrderHistory fulfilled = new OrderHistory("Fulfilled", 100, false);
+        OrderHistory cancelled = new OrderHistory("Cancelled", 100, false);
+        CustomerIndex index = new CustomerIndex(fulfilled, cancelled);
+        Order first = new Order("widget", false, 2, "ann", 7);
+        index.add(first);
+        index.finalized(first, fulfilled, fulfilled.add(first));
+        Order second = new Order("gadget", false, 3, "ann", 7);
+        index.add(second);
+        assertEquals(List.of("widget", "gadget"), products(index.lookup("ann")));
+        index.finalized(second, cancelled, cancelled.add(second));
+        assertEquals(List.of("widget", "gadget"), products(index.lookup("ann")));
+    }
+
+    // Without an archive, entries leave the index as the history drops them
+    @Test
+    void droppedHistoryEntriesLeaveTheIndex() throws IOException {
+        OrderHistory fulfilled = new OrderHistory("Fulfilled", 10, false);
+        OrderHistory cancelled = new OrderHistory("Cancelled", 10, false);
+        CustomerIndex index = new CustomerIndex(fulfilled, cancelled);
+        Order waiting = new Order("widget", false, 1, "regular", 0);
+        index.add(waiting);
+        for (int i = 1; i <= 1000; i++) {
+            Order order = new Order("widget", false, 1, i % 2 == 0 ? "regular" : "guest" + i, i);
+            index.add(order);
+            index.finalized(order, fulfilled, fulfilled.add(order));
+        }
+        assertTrue(index.size() <= 11, "customers indexed: " + index.size());
+        List<Order> regular = index.lookup("regular");
+        assertEquals(6, regular.size());
+        assertEquals(0, regular.get(0).orderNum);
+        assertEquals(1000, regular.get(5).orderNum);
+    }
+
+    private static List<String> products(List<Order> orders) {
+        List<String> products = new ArrayList<>();
+        for (Order order : orders) {
+            products.add(order.productId);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,71 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class IntIntMapTest {
+    @Test
+    void putGetAndReplace() {
+        IntIntMap map = new IntIntMap();
+        map.put(7, 0);
+        map.put(-3, 42);
+        assertEquals(0, map.get(7));
+        assertEquals(42, map.get(-3));
+        assertEquals(-1, map.get(8));
+        map.put(7, 5);
+        assertEquals(5, map.get(7));
+        assertEquals(2, map.size());
+        assertEquals(5, map.remove(7));
+        assertEquals(-1, map.remove(7));
+        assertEquals(1, map.size());
+    }
+
+    // Deleting from the middle of probe runs must shift later entries back, or lookups stop at the hole.
+    // A small key range keeps runs long, and many of them wrap around the end of the table.
+    @Test
+    void backwardShiftDeleteKeepsEveryKeyReachable() {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> model = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int step = 0; step < 200_000; step++) {
+            int key = random.nextInt(-500, 500);
+            if (random.nextInt(3) == 0) {
+                Integer expected = model.remove(key);
+                assertEquals(expected == null ? -1 : expected, map.remove(key));
+            } else {
+                int value = random.nextInt(1_000_000);
+                map.put(key, value);
+                model.put(key, value);
+            }
+            if (step % 1_000 == 0) {
+                for (int k = -500; k < 500; k++) {
+                    Integer expected = model.get(k);
+                    assertEquals(expected == null ? -1 : expected, map.get(k), "key " + k);
+                }
+            }
+            assertEquals(model.size(), map.size());
+        }
+    }
+
+    @Test
+    void growsAndDrains() {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i * 16, i); // Multiples of the table size, so the hash has to spread them
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, map.get(i * 16));
+        }
+        for (int i = 0; i < 100_000; i += 2) {
+            assertEquals(i, map.remove(i * 16));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i % 2 == 0 ? -1 : i, map.get(i * 16));
+        }
+        assertEquals(50_000, map.size());
+    }
+}
@@ -0,0 +1,147 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    // Replaying the journal into an empty inventory and order manager rebuilds the same state
+    @Test
+    void replayRebuildsTheState() throws IOException {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = newOrderManager(inventory);
+        Journal journal = new Journal(dir, 1, 1, 0);
+        inventory.journal = journal;
+        orderManager.journal = journal;
+        runCommands(inventory, orderManager);
+        journal.close();
+
+        Inventory replayed = new Inventory();
+        OrderManager replayedManager = newOrderManager(replayed);
+        long records = Journal.replay(Journal.segmentFile(dir, 1), replayed, replayedManager);
+        assertEquals(13, records);
+        assertEquals(state(inventory, orderManager), state(replayed, replayedManager));
+        List<Integer> queued = new ArrayList<>();
+        for (Order order : replayedManager.scheduler) {
+            queued.add(order.orderNum);
+            if (order.orderNum == 3) {
+                assertEquals(5_000, order.timeToLiveMillis);
+            }
+        }
+        assertEquals(List.of(6, 3, 7), queued);
+    }
+
+    // A record cut short by a crash, or one that fails its CRC, ends the replay and is cut off
+    @Test
+    void replayStopsAtATornRecord() throws IOException {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = newOrderManager(inventory);
+        Journal journal = new Journal(dir, 1, 1, 0);
+        inventory.journal = journal;
+        orderManager.journal = journal;
+        runCommands(inventory, orderManager);
+        journal.close();
+        Path file = Journal.segmentFile(dir, 1);
+        long intact = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(9);
+            torn.putInt(20).put(Journal.FULFILLED).putInt(7).flip(); // Claims 20 bytes, has 5 and no CRC
+            channel.write(torn);
+        }
+
+        Inventory replayed = new Inventory();
+        OrderManager replayedManager = newOrderManager(replayed);
+        assertEquals(13, Journal.replay(file, replayed, replayedManager));
+        assertEquals(intact, Files.size(file));
+        assertEquals(state(inventory, orderManager), state(replayed, replayedManager));
+    }
+
+    // An order whose record cannot be written is rejected with its stock given back, and leaves
+    // nothing behind in the journal
+    @Test
+    void unloggableOrdersAreRejectedWithTheirStock() throws IOException {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = newOrderManager(inventory);
+        Journal journal = new Journal(dir, 1, 1, 0);
+        inventory.journal = journal;
+        orderManager.journal = journal;
+        inventory.addStock("A", 10);
+        assertFalse(orderManager.enqueueOrder(new Order("A", false, 4, "x".repeat(70_000), 1))); // Name too long
+        String half = "y".repeat(40_000);
+        inventory.addStock(half, 10);
+        assertFalse(orderManager.enqueueOrder(new Order(half, false, 4, half, 2))); // Record larger than the buffer
+        BatchResult result = orderManager.enqueueOrders(List.of(new Order("A", false, 2, "x".repeat(70_000), 3),
+                new Order("A", false, 3, "ann", 4)));
+        assertFalse(result.isAccepted(0));
+        assertTrue(result.isAccepted(1));
+        assertEquals(7, inventory.lookup("A").Amount);
+        assertEquals(10, inventory.lookup(half).Amount);
+        journal.close();
+
+        Inventory replayed = new Inventory();
+        OrderManager replayedManager = newOrderManager(replayed);
+        assertEquals(3, Journal.replay(Journal.segmentFile(dir, 1), replayed, replayedManager));
+        assertEquals(state(inventory, orderManager), state(replayed, replayedManager));
+    }
+
+    static OrderManager newOrderManager(Inventory inventory) {
+        OrderManager orderManager = new OrderManager(inventory);
+        orderManager.events = NoOpEventSink.INSTANCE;
+        return orderManager;
+    }
+
+    // Restocks, orders with and without their own time to live, a rejection, fulfills, cancels,
+    // and taken orders that are put back or cancelled
+    static void runCommands(Inventory inventory, OrderManager orderManager) {
+        inventory.addStock("A", 10);
+        inventory.addStock("B", 5);
+        orderManager.enqueueOrder(new Order("A", false, 3, "ann", 1));
+        orderManager.enqueueOrder(new Order("B", true, 2, "bob", 2));
+        Order withTtl = new Order("A", false, 1, "cat", 3);
+        withTtl.timeToLiveMillis = 5_000;
+        orderManager.enqueueOrder(withTtl);
+        orderManager.enqueueOrder(new Order("B", false, 9, "dan", 4)); // Rejected, not journaled
+        orderManager.fulfillOrder(); // 2, the urgent one
+        orderManager.cancelOrder(1);
+        inventory.addStock("B", 4);
+        orderManager.enqueueOrder(new Order("B", false, 4, "eve", 5));
+        orderManager.enqueueOrder(new Order("A", false, 2, "fay", 6));
+        orderManager.abandonOrder(orderManager.takeOrder()); // 3 goes behind 5 and 6
+        orderManager.cancelTakenOrder(orderManager.takeOrder()); // 5
+        orderManager.enqueueOrder(new Order("A", false, 1, "gus", 7)); // Leaves 6, 3 and 7 queued
+    }
+
+    // Stock per product, then the queued orders in order, then both histories
+    static String state(Inventory inventory, OrderManager orderManager) throws IOException {
+        TreeMap<String, Integer> stock = new TreeMap<>();
+        for (ProductStock item : inventory.productRecords) {
+            stock.put(item.productId, item.Amount);
+        }
+        List<String> orders = new ArrayList<>();
+        for (Order order : orderManager.scheduler) {
+            orders.add(order.toString());
+        }
+        for (String status : new String[]{"Fulfilled", "Cancelled"}) {
+            HistoryPage page = orderManager.historyPage(status, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, 1_000);
+            for (Order order : page.orders) {
+                orders.add(order.toString());
+            }
+        }
+        return stock + " " + orders;
+    }
+}
@@ -0,0 +1,53 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 16; value++) {
+            histogram.record(value);
+        }
+        histogram.record(1_000_000); // Keeps max from capping the percentiles below
+        for (int rank = 1; rank <= 16; rank++) {
+            assertEquals(rank - 1, histogram.percentile(rank / 17.0));
+        }
+    }
+
+    // A value reads back as the top of its bucket, which is at most 1/16 above it
+    @Test
+    void bucketsAreWithinASixteenth() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            long value = 16 + random.nextLong(1L << random.nextInt(5, 62));
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(Long.MAX_VALUE);
+            long reported = histogram.percentile(0.5);
+            assertTrue(reported >= value && reported - value <= value / 16, value + " read back as " + reported);
+        }
+    }
+
+    @Test
+    void percentilesCountsMaxAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.99));
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        histogram.record(-5); // Counted in the lowest bucket
+        assertEquals(1_001, histogram.count());
+        assertEquals(1_000_000, histogram.max());
+        long p50 = histogram.percentile(0.5);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 + 500_000 / 16, "p50 " + p50);
+        assertEquals(1_000_000, histogram.percentile(1.0));
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+    }
+}
@@ -0,0 +1,79 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class MpscRingTest {
+    @Test
+    void refusesWhenFullAndWrapsAround() {
+        MpscRing<Integer> ring = new MpscRing<>(4);
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(ring.offer(lap * 4 + i));
+            }
+            assertFalse(ring.offer(-1));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(lap * 4 + i, ring.poll());
+            }
+            assertNull(ring.poll());
+        }
+    }
+
+    @Test
+    void needsAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRing<Integer>(6));
+        assertThrows(IllegalArgumentException.class, () -> new MpscRing<Integer>(0));
+    }
+
+    // Producers racing for slots must not lose, repeat or reorder any one producer's items
+    @Test
+    void keepsEachProducersItemsInOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRing<long[]> ring = new MpscRing<>(64); // Small, so producers often find it full
+        AtomicBoolean stop = new AtomicBoolean(); // So a failed run cannot leave producers stuck on a full ring
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer && !stop.get(); i++) {
+                    long[] item = {producer, i};
+                    while (!ring.offer(item) && !stop.get()) {
+                        Thread.yield(); // Lets the consumer run even on a single core
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        long[] next = new long[producers];
+        long received = 0;
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        try {
+            while (received < (long) producers * perProducer && System.nanoTime() < deadline) {
+                long[] item = ring.poll();
+                if (item == null) {
+                    Thread.yield();
+                    continue;
+                }
+                assertEquals(next[(int) item[0]]++, item[1], "producer " + item[0]);
+                received++;
+            }
+        } finally {
+            stop.set(true);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        assertEquals((long) producers * perProducer, received);
+        assertNull(ring.poll());
+    }
+}
@@ -0,0 +1,34 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrderClientTest {
+    @TempDir
+    Path dir;
+
+    // Blank and comment lines with CRLF endings are skipped on both sides, and only '\n' ends a line,
+    // so every request is answered
+    @Test
+    void crlfFilesGetOneResponsePerRequest() throws IOException, InterruptedException {
+        Path file = dir.resolve("commands.csv");
+        Files.write(file, ("R,widget,5\r\n\r\n# restocked\rR,widget,1\r\nO,widget,2,ann,1,false\r\n\r\nF\r\nC,9")
+                .getBytes(StandardCharsets.UTF_8));
+        Inventory inventory = new Inventory();
+        try (OrderServer server = new OrderServer(new InetSocketAddress("127.0.0.1", 0),
+                new BulkLoader(inventory, new OrderManager(inventory)))) {
+            OrderClient client = new OrderClient();
+            client.run(server.address(), file, 2);
+            assertEquals(4, client.requests);
+            assertEquals(Map.of("RESTOCKED", 1L, "ACCEPTED", 1L, "FULFILLED", 1L, "NOT_FOUND", 1L), client.outcomes);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrderHistoryTest {
+    private static final int CAPACITY = 500;
+    private static final int ORDERS = 20_000;
+
+    @TempDir
+    Path dir;
+
+    // Range pages over the archive must find exactly what a full scan finds, whichever blocks the index skips
+    @Test
+    void rangePagesMatchAFullScan() throws IOException {
+        OrderHistory history = new OrderHistory("Fulfilled", CAPACITY, true);
+        List<Order> added = addOrders(history, new SplittableRandom(1));
+        SplittableRandom random = new SplittableRandom(2);
+        for (int query = 0; query < 50; query++) {
+            int min = random.nextInt(ORDERS);
+            int max = min + random.nextInt(500);
+            assertEquals(expected(added, min, max), orderNums(history, min, max, 1 + random.nextInt(300)));
+        }
+        assertEquals(expected(added, 0, -1), orderNums(history, 0, -1, 100));
+        history.close();
+    }
+
+    // After a restore the index is rebuilt from the archive file, and appends after it are found too
+    @Test
+    void rangePagesAfterRestore() throws IOException {
+        Path file = dir.resolve("fulfilled.dat");
+        OrderHistory history = new OrderHistory("Fulfilled", CAPACITY, true);
+        history.useArchive(file);
+        List<Order> added = addOrders(history, new SplittableRandom(3));
+        OrderHistory.Mark mark = history.mark();
+        history.close();
+
+        OrderHistory restored = new OrderHistory("Fulfilled", CAPACITY, true);
+        restored.useArchive(file);
+        restored.restore(mark.archivedCount, mark.archivedBytes);
+        for (Order order : mark.retained) {
+            restored.add(order);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            Order order = new Order("P", false, 1, "c", ORDERS + i);
+            restored.add(order);
+            added.add(order);
+        }
+        SplittableRandom random = new SplittableRandom(4);
+        for (int query = 0; query < 50; query++) {
+            int min = random.nextInt(ORDERS + 5_000);
+            int max = min + random.nextInt(2_000);
+            assertEquals(expected(added, min, max), orderNums(restored, min, max, 1 + random.nextInt(300)));
+        }
+        restored.close();
+        assertTrue(Files.size(file) > 0);
+    }
+
+    // Mostly rising order numbers with some out of order, like orders finishing out of sequence
+    private static List<Order> addOrders(OrderHistory history, SplittableRandom random) {
+        List<Order> added = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            int orderNum = random.nextInt(10) == 0 ? Math.max(0, i - random.nextInt(2_000)) : i;
+            Order order = new Order("P" + random.nextInt(10), random.nextBoolean(), 1 + random.nextInt(5),
+                    "customer" + random.nextInt(100), orderNum);
+            order.status = "Fulfilled";
+            history.add(order);
+            added.add(order);
+        }
+        return added;
+    }
+
+    private static List<Integer> expected(List<Order> added, int min, int max) {
+        List<Integer> orderNums = new ArrayList<>();
+        for (Order order : added) {
+            if (order.orderNum >= min && order.orderNum <= max) {
+                orderNums.add(order.orderNum);
+            }
+        }
+        return orderNums;
+    }
+
+    private static List<Integer> orderNums(OrderHistory history, int min, int max, int limit) throws IOException {
+        List<Integer> orderNums = new ArrayList<>();
+        long cursor = 0;
+        HistoryPage page;
+        do {
+            page = history.page(cursor, min, max, limit);
+            for (Order order : page.orders) {
+                orderNums.add(order.orderNum);
+            }
+            cursor = page.nextCursor;
+        } while (page.hasMore);
+        return orderNums;
+    }
+}
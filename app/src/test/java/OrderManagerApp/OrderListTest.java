@@ -0,0 +1,105 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class OrderListTest {
+    private static Order order(int orderNum) {
+        return new Order("P", false, 1, "c", orderNum);
+    }
+
+    @Test
+    void removesFromTheHeadTheMiddleAndTheTail() {
+        OrderList list = new OrderList();
+        for (int i = 1; i <= 5; i++) {
+            list.add(order(i));
+        }
+        assertEquals(3, list.removeById(3).orderNum);
+        assertEquals(5, list.removeById(5).orderNum);
+        list.add(order(6)); // Appends after the new tail
+        assertEquals(1, list.removeFirst().orderNum);
+        assertEquals(List.of(2, 4, 6), orderNums(list));
+        assertEquals(3, list.size());
+        assertNull(list.removeById(3));
+        assertFalse(list.orderExists(3));
+        assertTrue(list.orderExists(4));
+    }
+
+    @Test
+    void emptiesAndRefills() {
+        OrderList list = new OrderList();
+        list.add(order(1));
+        assertEquals(1, list.removeById(1).orderNum);
+        assertTrue(list.isEmpty());
+        assertNull(list.head);
+        assertNull(list.tail);
+        assertNull(list.removeFirst());
+        list.add(order(2));
+        assertSame(list.head, list.tail);
+        assertEquals(List.of(2), orderNums(list));
+    }
+
+    @Test
+    void refusesANumberAlreadyInTheList() {
+        OrderList list = new OrderList();
+        list.add(order(1));
+        assertThrows(IllegalArgumentException.class, () -> list.add(order(1)));
+        assertEquals(1, list.size());
+        list.removeFirst();
+        list.add(order(1)); // Free again once it has left
+        assertEquals(List.of(1), orderNums(list));
+    }
+
+    // Random adds and removals against a LinkedHashMap, checking the links and the index after each step
+    @Test
+    void matchesAnInsertionOrderedMap() {
+        OrderList list = new OrderList();
+        Map<Integer, Order> model = new LinkedHashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        int nextNum = 0;
+        for (int step = 0; step < 20_000; step++) {
+            int roll = random.nextInt(10);
+            if (roll < 5) {
+                Order order = order(++nextNum);
+                list.add(order);
+                model.put(order.orderNum, order);
+            } else if (roll < 8) {
+                int orderNum = 1 + random.nextInt(nextNum + 1);
+                assertSame(model.remove(orderNum), list.removeById(orderNum));
+            } else {
+                Order first = model.isEmpty() ? null : model.values().iterator().next();
+                if (first != null) {
+                    model.remove(first.orderNum);
+                }
+                assertSame(first, list.removeFirst());
+            }
+            assertEquals(model.size(), list.size());
+            assertEquals(model.size(), list.index.size());
+        }
+        assertEquals(new ArrayList<>(model.keySet()), orderNums(list));
+        List<Integer> backwards = new ArrayList<>();
+        for (Node node = list.tail; node != null; node = node.prev) {
+            backwards.add(0, node.order.orderNum);
+        }
+        assertEquals(new ArrayList<>(model.keySet()), backwards);
+    }
+
+    private static List<Integer> orderNums(OrderList list) {
+        List<Integer> orderNums = new ArrayList<>();
+        for (Order order : list) {
+            orderNums.add(order.orderNum);
+        }
+        return orderNums;
+    }
+}
@@ -0,0 +1,101 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OrderManagerTest {
+    // With backorders on, a batch waitlists what does not fit and keeps behind orders already
+    // waiting, ending in the same state as enqueueing the orders one by one
+    @Test
+    void batchWithBackordersMatchesSingleEnqueues() throws IOException {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = backorderingManager(inventory);
+        BatchResult result = orderManager.enqueueOrders(batch());
+
+        Inventory single = new Inventory();
+        OrderManager singleManager = backorderingManager(single);
+        for (Order order : batch()) {
+            singleManager.enqueueOrder(order);
+        }
+
+        assertEquals(state(single, singleManager), state(inventory, orderManager));
+        assertFalse(result.isAccepted(0)); // Unknown product
+        assertTrue(result.isAccepted(1) && result.backordered.get(1)); // Behind order 1 on P's waitlist
+        assertFalse(result.isAccepted(2)); // No units
+        assertTrue(result.isAccepted(3) && !result.backordered.get(3));
+        assertTrue(result.backordered.get(4)); // Short
+        assertTrue(result.backordered.get(5)); // Fits, but must not jump ahead of 5
+        assertEquals(2, result.rejectedCount());
+
+        inventory.addStock("P", 6); // Releases 1 and then 2
+        single.addStock("P", 6);
+        assertEquals(state(single, singleManager), state(inventory, orderManager));
+        assertEquals(List.of(3, 1, 2), queued(orderManager));
+    }
+
+    // Duplicate order numbers are counted apart from orders rejected for lack of stock, and
+    // never as rejections in the sales totals
+    @Test
+    void metricsCountStockRejectionsAndDuplicatesApart() {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = JournalTest.newOrderManager(inventory);
+        OrderMetrics metrics = new OrderMetrics(orderManager.scheduler);
+        orderManager.metrics = metrics;
+        orderManager.sales = new SalesAggregates();
+        inventory.addStock("A", 5);
+        assertTrue(orderManager.enqueueOrder(new Order("A", false, 3, "ann", 1)));
+        assertFalse(orderManager.enqueueOrder(new Order("A", false, 3, "bob", 2))); // Short
+        assertFalse(orderManager.enqueueOrder(new Order("A", false, 1, "cat", 1))); // Pending number
+        BatchResult result = orderManager.enqueueOrders(List.of(new Order("A", false, 1, "dan", 1),
+                new Order("A", false, 9, "eve", 3), new Order("X", false, 1, "fay", 4),
+                new Order("A", false, 1, "gus", 5), new Order("A", false, 1, "hal", 5)));
+        assertEquals("{0, 4}", result.duplicate.toString());
+        assertEquals("{1, 2}", result.outOfStock.toString());
+        assertTrue(result.isAccepted(3));
+        assertEquals(3, metrics.rejections.sum());
+        assertEquals(3, metrics.duplicates.sum());
+        assertEquals(3, orderManager.sales.product("A").rejected.sum()
+                + orderManager.sales.product("X").rejected.sum());
+        assertNull(orderManager.sales.customer("cat")); // Only ever refused as duplicates
+        assertNull(orderManager.sales.customer("dan"));
+    }
+
+    private static OrderManager backorderingManager(Inventory inventory) {
+        OrderManager orderManager = JournalTest.newOrderManager(inventory);
+        orderManager.enableBackorders(10);
+        inventory.addStock("P", 5);
+        inventory.addStock("Q", 3);
+        orderManager.enqueueOrder(new Order("P", false, 10, "ann", 1)); // Waits for stock
+        return orderManager;
+    }
+
+    private static List<Order> batch() {
+        return List.of(new Order("X", false, 1, "bob", 7), new Order("P", false, 1, "cat", 2),
+                new Order("P", false, 0, "dan", 8), new Order("Q", false, 2, "eve", 3),
+                new Order("Q", false, 100, "fay", 5), new Order("Q", false, 1, "gus", 6));
+    }
+
+    private static List<Integer> queued(OrderManager orderManager) {
+        List<Integer> orderNums = new ArrayList<>();
+        for (Order order : orderManager.scheduler) {
+            orderNums.add(order.orderNum);
+        }
+        return orderNums;
+    }
+
+    private static String state(Inventory inventory, OrderManager orderManager) throws IOException {
+        List<String> waiting = new ArrayList<>();
+        for (Order order : orderManager.backorders.orders()) {
+            waiting.add(order.toString());
+        }
+        waiting.sort(null);
+        return JournalTest.state(inventory, orderManager) + " " + waiting;
+    }
+}
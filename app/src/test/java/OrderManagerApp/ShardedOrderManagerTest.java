@@ -0,0 +1,79 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardedOrderManagerTest {
+    private static final int SHARDS = 4;
+
+    @TempDir
+    Path dir;
+
+    // An order ID cancelled on one partition and reused at once on another must be accepted,
+    // as in a sequential run, however far behind the first partition is
+    @Test
+    void reusedIdsFollowTheCommandOrder() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int p = 0; p < 8; p++) {
+            lines.append("R,P").append(p).append(",100000\n");
+        }
+        for (int i = 0; i < 5_000; i++) {
+            lines.append("O,P").append(i % 8).append(",1,c,").append(i).append(",false\n");
+            lines.append("C,").append(i).append('\n');
+            lines.append("O,P").append((i + 3) % 8).append(",1,c,").append(i).append(",false\n");
+        }
+        Path file = dir.resolve("reuse.csv");
+        Files.writeString(file, lines);
+
+        Inventory inventory = new Inventory();
+        BulkLoader sequential = new BulkLoader(inventory, JournalTest.newOrderManager(inventory));
+        sequential.load(file);
+
+        ShardedOrderManager shards = newShards(false);
+        try {
+            ShardedLoader loader = new ShardedLoader(shards);
+            loader.load(file);
+            assertEquals(sequential.ordersAccepted, loader.ordersAccepted);
+            assertEquals(sequential.ordersRejected, loader.ordersRejected);
+            assertEquals(sequential.cancelled, loader.cancelled);
+            assertEquals(sequential.cancelMisses, loader.cancelMisses);
+            assertEquals(sequential.orderManager.scheduler.size(), shards.pendingCount());
+        } finally {
+            shards.close();
+        }
+    }
+
+    // Orders a partition holds on a waitlist when the router starts are known to it
+    @Test
+    void waitlistedOrdersCanBeCancelled() {
+        ShardedOrderManager shards = newShards(true);
+        try {
+            for (int i = 0; i < SHARDS; i++) {
+                assertTrue(shards.cancelOrder(100 + i).join(), "Order " + (100 + i));
+            }
+        } finally {
+            shards.close();
+        }
+    }
+
+    private static ShardedOrderManager newShards(boolean waitlisted) {
+        Inventory[] inventories = new Inventory[SHARDS];
+        OrderManager[] orderManagers = new OrderManager[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            inventories[i] = new Inventory();
+            orderManagers[i] = JournalTest.newOrderManager(inventories[i]);
+            if (waitlisted) {
+                orderManagers[i].enableBackorders(10);
+                inventories[i].addStock("P", 1);
+                orderManagers[i].enqueueOrder(new Order("P", false, 5, "c", 100 + i));
+            }
+        }
+        return new ShardedOrderManager(inventories, orderManagers);
+    }
+}
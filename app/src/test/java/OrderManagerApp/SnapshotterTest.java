@@ -0,0 +1,154 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotterTest {
+    @TempDir
+    Path dir;
+
+    // A clean close snapshots everything, and reopening restores it without replaying anything
+    @Test
+    void restoresFromASnapshotAlone() throws IOException {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = JournalTest.newOrderManager(inventory);
+        Snapshotter store = OrderManagerApp.openStore(dir, 1, 0, 0, inventory, orderManager);
+        JournalTest.runCommands(inventory, orderManager);
+        String before = JournalTest.state(inventory, orderManager);
+        store.close();
+
+        Inventory restored = new Inventory();
+        OrderManager restoredManager = JournalTest.newOrderManager(restored);
+        Snapshotter reopened = OrderManagerApp.openStore(dir, 1, 0, 0, restored, restoredManager);
+        assertEquals(0, reopened.journal.pendingRecords);
+        assertEquals(before, JournalTest.state(restored, restoredManager));
+        assertEquals(List.of(reopened.journal.segment), Journal.listSegments(dir));
+        reopened.close();
+    }
+
+    // After a crash the newest snapshot is loaded and only the journal written since is replayed,
+    // including history entries that were evicted to the archive
+    @Test
+    void restoresASnapshotPlusTheJournalAfterIt() throws IOException {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = JournalTest.newOrderManager(inventory);
+        orderManager.finalizedOrders = new OrderHistory("Fulfilled", 8, true); // Small, so most entries are archived
+        orderManager.cancelledOrders = new OrderHistory("Cancelled", 8, true);
+        Snapshotter store = OrderManagerApp.openStore(dir, 1, 0, 0, inventory, orderManager);
+        inventory.addStock("C", 1_000);
+        for (int i = 100; i < 150; i++) {
+            orderManager.enqueueOrder(new Order("C", i % 4 == 0, 1 + i % 3, "c" + i % 7, i));
+            if (i % 3 == 0) {
+                orderManager.fulfillOrder();
+            }
+        }
+        store.takeSnapshot();
+        JournalTest.runCommands(inventory, orderManager);
+        for (int i = 100; i < 150; i += 5) {
+            orderManager.cancelOrder(i);
+        }
+        String before = JournalTest.state(inventory, orderManager);
+        store.journal.sync(); // Durable, but no snapshot on the way out
+
+        Inventory restored = new Inventory();
+        OrderManager restoredManager = JournalTest.newOrderManager(restored);
+        restoredManager.finalizedOrders = new OrderHistory("Fulfilled", 8, true);
+        restoredManager.cancelledOrders = new OrderHistory("Cancelled", 8, true);
+        Snapshotter reopened = OrderManagerApp.openStore(dir, 1, 0, 0, restored, restoredManager);
+        assertEquals(store.journal.pendingRecords, reopened.journal.pendingRecords);
+        assertEquals(before, JournalTest.state(restored, restoredManager));
+        reopened.close();
+    }
+
+    // Compact queues keep an order's own time to live through a requeue, a snapshot and a replay
+    @Test
+    void compactQueuesKeepPerOrderTimeToLive() throws IOException {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = compactOrderManager(inventory);
+        Snapshotter store = OrderManagerApp.openStore(dir, 1, 0, 0, inventory, orderManager);
+        JournalTest.runCommands(inventory, orderManager); // Requeues order 3, which has a 5 s limit
+        assertEquals(5_000, timeToLive(orderManager, 3));
+        store.takeSnapshot();
+        orderManager.abandonOrder(orderManager.takeOrder()); // 6
+        orderManager.abandonOrder(orderManager.takeOrder()); // 3, journaled after the snapshot
+        assertEquals(5_000, timeToLive(orderManager, 3));
+        String before = JournalTest.state(inventory, orderManager);
+        store.journal.sync();
+
+        Inventory restored = new Inventory();
+        OrderManager restoredManager = compactOrderManager(restored);
+        Snapshotter reopened = OrderManagerApp.openStore(dir, 1, 0, 0, restored, restoredManager);
+        assertEquals(before, JournalTest.state(restored, restoredManager));
+        assertEquals(5_000, timeToLive(restoredManager, 3));
+        reopened.close();
+    }
+
+    // Snapshots taken while another thread keeps changing the state, each rebuilt from the one
+    // before it, restore exactly the state at the end
+    @Test
+    void snapshotsTakenDuringChangesRestoreTheSameState() throws Exception {
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = concurrentOrderManager(inventory);
+        Snapshotter store = OrderManagerApp.openStore(dir, 64, 0, 0, inventory, orderManager);
+        Thread changes = new Thread(() -> {
+            for (int i = 1; i <= 3_000; i++) {
+                if (i % 500 == 1) {
+                    inventory.addStock("P" + i % 4, 1_000);
+                }
+                orderManager.enqueueOrder(new Order("P" + i % 4, i % 5 == 0, 1 + i % 3, "c" + i % 11, i));
+                if (i % 4 == 0) {
+                    orderManager.fulfillOrder();
+                }
+                if (i % 9 == 0) {
+                    orderManager.cancelOrder(i - 7);
+                }
+            }
+        });
+        changes.start();
+        int snapshots = 0;
+        while (changes.isAlive()) {
+            store.takeSnapshot();
+            snapshots++;
+            Thread.yield();
+        }
+        changes.join();
+        assertTrue(snapshots > 0);
+        String before = JournalTest.state(inventory, orderManager);
+        store.close();
+
+        Inventory restored = new Inventory();
+        OrderManager restoredManager = concurrentOrderManager(restored);
+        Snapshotter reopened = OrderManagerApp.openStore(dir, 64, 0, 0, restored, restoredManager);
+        assertEquals(before, JournalTest.state(restored, restoredManager));
+        reopened.close();
+    }
+
+    private static OrderManager concurrentOrderManager(Inventory inventory) {
+        OrderManager orderManager = new OrderManager(inventory, true);
+        orderManager.events = NoOpEventSink.INSTANCE;
+        orderManager.finalizedOrders = new OrderHistory("Fulfilled", 50, true); // Small, so most entries are archived
+        orderManager.cancelledOrders = new OrderHistory("Cancelled", 50, true);
+        return orderManager;
+    }
+
+    private static OrderManager compactOrderManager(Inventory inventory) {
+        OrderManager orderManager = OrderManagerApp.newOrderManager(inventory, "two-queue", 2, 1_000, false, true, 100);
+        orderManager.events = NoOpEventSink.INSTANCE;
+        return orderManager;
+    }
+
+    private static long timeToLive(OrderManager orderManager, int orderNum) {
+        for (Order order : orderManager.scheduler) {
+            if (order.orderNum == orderNum) {
+                return order.timeToLiveMillis;
+            }
+        }
+        throw new AssertionError("Order " + orderNum + " is not queued");
+    }
+}
@@ -0,0 +1,86 @@
+package OrderManagerApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+    @Test
+    void expiresOnItsDeadlineTick() {
+        TimingWheel wheel = new TimingWheel(0);
+        List<Long> expiredAt = new ArrayList<>();
+        wheel.schedule(1, 5);
+        wheel.advance(4, orderNum -> expiredAt.add(wheel.currentTick()));
+        assertTrue(expiredAt.isEmpty());
+        wheel.advance(5, orderNum -> expiredAt.add(wheel.currentTick()));
+        assertEquals(List.of(5L), expiredAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlinesExpireOnTheNextTick() {
+        TimingWheel wheel = new TimingWheel(100);
+        List<Integer> expired = new ArrayList<>();
+        wheel.schedule(1, 50);
+        wheel.advance(101, expired::add);
+        assertEquals(List.of(1), expired);
+    }
+
+    // Deadlines on every level must cascade down and fire exactly on time
+    @Test
+    void cascadesThroughEveryLevel() {
+        long start = 12_345;
+        TimingWheel wheel = new TimingWheel(start);
+        long[] deltas = {1, 63, 64, 65, 4_095, 4_096, 4_097, 262_143, 262_144, 262_145, 16_777_215, 16_777_216,
+                16_777_217, 33_554_433};
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < deltas.length; i++) {
+            wheel.schedule(i, start + deltas[i]);
+            deadlines.put(i, start + deltas[i]);
+        }
+        Map<Integer, Long> fired = new HashMap<>();
+        long tick = start;
+        while (wheel.size() > 0) {
+            tick += 1 << 20; // Large steps still process every tick in between
+            wheel.advance(tick, orderNum -> fired.put(orderNum, wheel.currentTick()));
+        }
+        assertEquals(deadlines, fired);
+    }
+
+    // Random schedules and cancels against the deadlines they should fire on
+    @Test
+    void randomScheduleAndCancel() {
+        TimingWheel wheel = new TimingWheel(0);
+        SplittableRandom random = new SplittableRandom(1);
+        Map<Integer, TimingWheel.Timeout> live = new HashMap<>();
+        Map<Integer, Long> expected = new HashMap<>();
+        Map<Integer, Long> fired = new HashMap<>();
+        int nextNum = 0;
+        for (int round = 0; round < 2_000; round++) {
+            for (int i = random.nextInt(20); i > 0; i--) {
+                int orderNum = ++nextNum;
+                long deadline = wheel.currentTick() + 1 + random.nextLong(random.nextBoolean() ? 100 : 300_000);
+                live.put(orderNum, wheel.schedule(orderNum, deadline));
+                expected.put(orderNum, deadline);
+            }
+            if (!live.isEmpty() && random.nextInt(3) == 0) {
+                int orderNum = live.keySet().iterator().next();
+                wheel.cancel(live.remove(orderNum));
+                expected.remove(orderNum);
+            }
+            wheel.advance(wheel.currentTick() + random.nextInt(500), orderNum -> {
+                live.remove(orderNum);
+                fired.put(orderNum, wheel.currentTick());
+            });
+            assertEquals(live.size(), wheel.size());
+        }
+        wheel.advance(wheel.currentTick() + 400_000, orderNum -> fired.put(orderNum, wheel.currentTick()));
+        assertEquals(expected, fired);
+    }
+}
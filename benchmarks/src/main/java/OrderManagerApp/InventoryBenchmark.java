@@ -0,0 +1,63 @@
+package OrderManagerApp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Inventory lookups as the number of SKUs grows. Products are visited in a fixed random order
+// so the benchmark does not just hit the same cache lines.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class InventoryBenchmark {
+    private static final int LOOKUP_SEQUENCE = 1 << 16;
+
+    @Param({"100", "10000", "100000", "1000000"})
+    int skuCount;
+
+    Inventory inventory;
+    String[] lookups; // Product IDs in the order they are looked up
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        inventory = new Inventory();
+        String[] ids = new String[skuCount];
+        for (int i = 0; i < skuCount; i++) {
+            ids[i] = "SKU-" + i;
+            inventory.addStock(ids[i], 1_000_000_000);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        lookups = new String[LOOKUP_SEQUENCE];
+        for (int i = 0; i < LOOKUP_SEQUENCE; i++) {
+            // New String instances, as a lookup from parsed input would have
+            lookups[i] = new String(ids[random.nextInt(skuCount)]);
+        }
+    }
+
+    private String nextProduct() {
+        return lookups[next++ & (LOOKUP_SEQUENCE - 1)];
+    }
+
+    @Benchmark
+    public boolean productExists() {
+        return inventory.productExists(nextProduct());
+    }
+
+    @Benchmark
+    public boolean inventoryCheck() {
+        return inventory.InventoryCheck(nextProduct(), 1);
+    }
+
+    @Benchmark
+    public boolean tryReserve() {
+        String product = nextProduct();
+        boolean reserved = inventory.tryReserve(product, 1);
+        inventory.returnStock(product, 1); // Undo so stock never runs out
+        return reserved;
+    }
+}
@@ -0,0 +1,283 @@
+package OrderManagerApp;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Macro load test of the whole order pipeline. Runs commands from a WorkloadGenerator or a recorded
+// trace through BulkLoader against a fresh Inventory and OrderManager on one thread, and reports
+// throughput, latency percentiles per command, heap use and a checksum of the final state.
+// With --rate the commands arrive open loop, on a fixed or Poisson schedule that does not wait for
+// the system, and latency is measured from when each command was due, so falling behind shows up
+// in the percentiles. Without it the commands run back to back and latency is service time.
+// The final state depends only on the commands, so equal seeds and settings give equal checksums
+// on every run and every version that keeps the same semantics. The aging scheduler therefore
+// ages orders by commands run instead of by wall-clock time.
+public class LoadTest {
+    private static final String COMMANDS = "ROFC";
+
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        long ops = 1_000_000;
+        int products = 1000;
+        double zipf = 1.0;
+        double urgent = 0.2;
+        double fulfill = 0.3;
+        double cancel = 0.05;
+        double restock = 0.05;
+        int initialStock = 10_000;
+        int restockAmount = 500;
+        double rate = 0; // Commands per second for an open-loop run, 0 to run them back to back
+        boolean poisson = false;
+        Path trace = null; // Replay this trace instead of generating commands
+        Path writeTrace = null; // Only write the generated commands to this file
+        String scheduler = "two-queue";
+        long agingCommands = 1000; // Commands an order waits to be promoted one level with --scheduler aging
+        boolean compact = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--ops":
+                        ops = Long.parseLong(args[++i]);
+                        break;
+                    case "--products":
+                        products = Integer.parseInt(args[++i]);
+                        break;
+                    case "--zipf":
+                        zipf = Double.parseDouble(args[++i]);
+                        break;
+                    case "--urgent":
+                        urgent = Double.parseDouble(args[++i]);
+                        break;
+                    case "--fulfill":
+                        fulfill = Double.parseDouble(args[++i]);
+                        break;
+                    case "--cancel":
+                        cancel = Double.parseDouble(args[++i]);
+                        break;
+                    case "--restock":
+                        restock = Double.parseDouble(args[++i]);
+                        break;
+                    case "--initial-stock":
+                        initialStock = Integer.parseInt(args[++i]);
+                        break;
+                    case "--restock-amount":
+                        restockAmount = Integer.parseInt(args[++i]);
+                        break;
+                    case "--rate":
+                        rate = Double.parseDouble(args[++i]);
+                        break;
+                    case "--poisson":
+                        poisson = true;
+                        break;
+                    case "--trace":
+                        trace = Paths.get(args[++i]);
+                        break;
+                    case "--write-trace":
+                        writeTrace = Paths.get(args[++i]);
+                        break;
+                    case "--scheduler":
+                        scheduler = args[++i];
+                        break;
+                    case "--aging-commands":
+                        agingCommands = Long.parseLong(args[++i]);
+                        break;
+                    case "--compact":
+                        compact = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Usage: LoadTest [--seed <n>] [--ops <n>] [--products <n>] [--zipf <exponent>]"
+                    + " [--urgent <ratio>] [--fulfill <rate>] [--cancel <rate>] [--restock <rate>]"
+                    + " [--initial-stock <units>] [--restock-amount <units>] [--rate <ops/s> [--poisson]]"
+                    + " [--trace <file> | --write-trace <file>] [--scheduler two-queue|aging]"
+                    + " [--aging-commands <n>] [--compact]");
+            return;
+        }
+
+        WorkloadGenerator generator = trace == null ? new WorkloadGenerator(seed, products, zipf, urgent,
+                fulfill, cancel, restock, initialStock, restockAmount) : null;
+        if (writeTrace != null) {
+            writeTrace(generator, ops, writeTrace);
+            return;
+        }
+        byte[] traceBytes = trace != null ? Files.readAllBytes(trace) : null;
+
+        Inventory inventory = new Inventory();
+        OrderManager orderManager = OrderManagerApp.newOrderManager(inventory, scheduler, 2, 1000, false, compact,
+                OrderHistory.DEFAULT_CAPACITY);
+        long[] clock = new long[1]; // Commands run so far
+        if (scheduler.equals("aging")) {
+            orderManager.scheduler = new PriorityAgingScheduler(PriorityAgingScheduler.defaultWeights(2), agingCommands,
+                    () -> clock[0], order -> order.Precedence ? 0 : 1);
+        }
+        orderManager.events = NoOpEventSink.INSTANCE;
+        BulkLoader loader = new BulkLoader(inventory, orderManager);
+        LatencyHistogram[] latencies = new LatencyHistogram[COMMANDS.length()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        SplittableRandom arrivals = new SplittableRandom(seed ^ 0x5DEECE66DL); // Apart from the commands, so the rate does not change them
+        double periodNanos = rate > 0 ? 1e9 / rate : 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        byte[] line = new byte[64];
+        long commands = 0;
+        long start = System.nanoTime();
+        double due = start; // When the next command arrives in an open-loop run
+        int traceAt = 0;
+        while (traceBytes != null ? traceAt < traceBytes.length : commands < ops) {
+            byte[] buf;
+            int lineStart;
+            int lineEnd;
+            if (traceBytes != null) {
+                buf = traceBytes;
+                lineStart = traceAt;
+                lineEnd = lineStart;
+                while (lineEnd < buf.length && buf[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                traceAt = lineEnd + 1;
+            } else {
+                buf = line;
+                lineStart = 0;
+                lineEnd = generator.next(line);
+            }
+            long begin;
+            if (periodNanos > 0) {
+                due += poisson ? -Math.log(1 - arrivals.nextDouble()) * periodNanos : periodNanos;
+                waitUntil((long) due);
+                begin = (long) due;
+            } else {
+                begin = System.nanoTime();
+            }
+            clock[0]++;
+            BulkLoader.Outcome outcome = loader.execute(buf, lineStart, lineEnd);
+            if (outcome == BulkLoader.Outcome.SKIPPED) {
+                continue;
+            }
+            int type = COMMANDS.indexOf(buf[lineStart]);
+            if (type >= 0) {
+                latencies[type].record(System.nanoTime() - begin);
+            }
+            commands++;
+        }
+        long elapsed = System.nanoTime() - start;
+        traceBytes = null; // Not part of the footprint
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.gc();
+        System.gc();
+        long liveHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        double seconds = elapsed / 1e9;
+        System.out.println("=== Load Test ===");
+        System.out.println(trace != null ? "Trace " + trace
+                : String.format("Seed %d, %d products, zipf %.2f, urgent %.2f, fulfill %.2f, cancel %.2f, restock %.2f",
+                seed, products, zipf, urgent, fulfill, cancel, restock));
+        System.out.println(rate > 0 ? String.format("Open loop at %.0f ops/s, %s arrivals", rate, poisson ? "Poisson" : "fixed")
+                : "Closed loop");
+        System.out.printf("Commands: %d in %.3f s (%.0f ops/s)\n", commands, seconds, seconds > 0 ? commands / seconds : 0.0);
+        System.out.println("Latency us       count      p50      p99    p99.9      max");
+        for (int i = 0; i < latencies.length; i++) {
+            LatencyHistogram latency = latencies[i];
+            if (latency.count() > 0) {
+                System.out.printf("  %c         %10d %8.1f %8.1f %8.1f %8.1f\n", COMMANDS.charAt(i), latency.count(),
+                        latency.percentile(0.50) / 1e3, latency.percentile(0.99) / 1e3,
+                        latency.percentile(0.999) / 1e3, latency.max() / 1e3);
+            }
+        }
+        System.out.printf("Orders accepted: %d, rejected: %d, fulfilled: %d, empty fulfills: %d, cancelled: %d,"
+                        + " cancel misses: %d, malformed: %d\n", loader.ordersAccepted, loader.ordersRejected,
+                loader.fulfilled, loader.emptyFulfills, loader.cancelled, loader.cancelMisses, loader.malformed);
+        System.out.printf("Heap: %.1f MB live after GC, %.1f MB peak\n", liveHeap / 1e6, peakHeap / 1e6);
+        System.out.printf("Final state: %d pending, %d fulfilled, %d cancelled, %d products, checksum %08x\n",
+                orderManager.scheduler.size(), orderManager.finalizedOrders.size(), orderManager.cancelledOrders.size(),
+                inventory.productRecords.size(), checksum(inventory, orderManager));
+    }
+
+    // Sleep most of the way to a System.nanoTime() deadline and spin the rest
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > TimeUnit.MICROSECONDS.toNanos(100)) {
+                LockSupport.parkNanos(remaining - TimeUnit.MICROSECONDS.toNanos(50));
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static void writeTrace(WorkloadGenerator generator, long ops, Path file) throws IOException {
+        byte[] line = new byte[64];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            for (long i = 0; i < ops; i++) {
+                out.write(line, 0, generator.next(line));
+                out.write('\n');
+            }
+        }
+        System.out.println("Wrote " + ops + " commands to " + file);
+    }
+
+    // CRC32 of the stock of every product, the pending orders in queue order and both histories.
+    // Strings go in with their length, so moving bytes between adjacent fields changes the checksum.
+    static long checksum(Inventory inventory, OrderManager orderManager) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(OutputStream.nullOutputStream(), crc)))) {
+            for (ProductStock stock : inventory.productRecords) {
+                out.writeUTF(stock.productId);
+                out.writeInt(stock.Amount);
+            }
+            for (Order order : orderManager.scheduler) {
+                writeOrder(out, order);
+            }
+            for (String status : new String[]{"Fulfilled", "Cancelled"}) {
+                long cursor = 0;
+                HistoryPage page;
+                do {
+                    page = orderManager.historyPage(status, cursor, Integer.MIN_VALUE, Integer.MAX_VALUE, 10_000);
+                    for (Order order : page.orders) {
+                        writeOrder(out, order);
+                    }
+                    cursor = page.nextCursor;
+                } while (page.hasMore);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void writeOrder(DataOutputStream out, Order order) throws IOException {
+        out.writeInt(order.orderNum);
+        out.writeUTF(order.productId);
+        out.writeUTF(order.customerName);
+        out.writeInt(order.orderQuantity);
+        out.writeBoolean(order.Precedence);
+        out.writeUTF(order.status);
+    }
+}
@@ -0,0 +1,105 @@
+package OrderManagerApp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// A mix of enqueues, fulfills, cancels and restocks with a configurable share of priority orders.
+// The operations are drawn once from a fixed seed and replayed in a loop, so every run and every
+// version sees the same sequence. Enqueues and removals are balanced, so the queue depth wanders
+// around its starting value.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class MixedWorkloadBenchmark {
+    private static final int SCRIPT_LENGTH = 1 << 16;
+    private static final int HISTORY_LIMIT = 100_000;
+    private static final int PRODUCTS = 1000;
+    private static final byte ENQUEUE = 0;
+    private static final byte FULFILL = 1;
+    private static final byte CANCEL = 2;
+    private static final byte RESTOCK = 3;
+
+    @Param({"0.0", "0.1", "0.5", "0.9"})
+    double priorityRatio;
+
+    @Param({"1000", "100000"})
+    int depth;
+
+    @Param({"two-queue", "aging"})
+    String scheduler;
+
+    Inventory inventory;
+    OrderManager orderManager;
+    String[] productIds;
+    byte[] ops; // Operation of each script step
+    int[] products; // Product of each step
+    boolean[] priorities; // Priority flag of each enqueue step
+    int[] cancelOffsets; // How far back from the newest order each cancel reaches
+    int step;
+    int nextId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        inventory = new Inventory();
+        productIds = new String[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds[i] = "SKU-" + i;
+            inventory.addStock(productIds[i], 1_000_000_000);
+        }
+        orderManager = new OrderManager(inventory, scheduler.equals("aging")
+                ? new PriorityAgingScheduler(2, 100) : new TwoQueueScheduler(false));
+        orderManager.events = NoOpEventSink.INSTANCE;
+        // Drop old history instead of archiving it, so the benchmarks do not measure disk writes
+        orderManager.finalizedOrders = new OrderHistory("Fulfilled", HISTORY_LIMIT, false);
+        orderManager.cancelledOrders = new OrderHistory("Cancelled", HISTORY_LIMIT, false);
+
+        SplittableRandom random = new SplittableRandom(42);
+        ops = new byte[SCRIPT_LENGTH];
+        products = new int[SCRIPT_LENGTH];
+        priorities = new boolean[SCRIPT_LENGTH];
+        cancelOffsets = new int[SCRIPT_LENGTH];
+        for (int i = 0; i < SCRIPT_LENGTH; i++) {
+            double roll = random.nextDouble();
+            ops[i] = roll < 0.48 ? ENQUEUE : roll < 0.92 ? FULFILL : roll < 0.99 ? CANCEL : RESTOCK;
+            products[i] = random.nextInt(PRODUCTS);
+            priorities[i] = random.nextDouble() < priorityRatio;
+            cancelOffsets[i] = 1 + random.nextInt(depth);
+        }
+        nextId = 1;
+        for (int i = 0; i < depth; i++) {
+            enqueue(i);
+        }
+    }
+
+    private boolean enqueue(int i) {
+        int s = i & (SCRIPT_LENGTH - 1);
+        return orderManager.enqueueOrder(new Order(productIds[products[s]], priorities[s], 1, "customer", nextId++));
+    }
+
+    @Benchmark
+    public Object mixed() {
+        int s = step++ & (SCRIPT_LENGTH - 1);
+        Object result;
+        switch (ops[s]) {
+            case ENQUEUE:
+                result = enqueue(s);
+                break;
+            case FULFILL:
+                result = orderManager.fulfillOrder();
+                break;
+            case CANCEL:
+                result = orderManager.cancelOrder(nextId - cancelOffsets[s]);
+                break;
+            default:
+                inventory.addStock(productIds[products[s]], 1);
+                result = null;
+                break;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package OrderManagerApp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// enqueueOrder, fulfillOrder and cancelOrder at a fixed queue depth.
+// After each call an invocation-level teardown undoes its effect on the queue directly through
+// the scheduler, outside the measured time, so the depth stays at the parameter for the whole
+// run and the score is the operation alone. JMH timestamps every invocation for that, which adds
+// a few tens of nanoseconds of its own to each score.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class OrderQueueBenchmark {
+    private static final int HISTORY_LIMIT = 100_000; // History entries kept, older ones are dropped
+    private static final String PRODUCT = "SKU-1";
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int depth;
+
+    Inventory inventory;
+    OrderManager orderManager;
+    int oldestId; // Pending orders have IDs oldestId until nextId - 1
+    int nextId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        inventory = new Inventory();
+        inventory.addStock(PRODUCT, 1_000_000_000);
+        orderManager = new OrderManager(inventory);
+        orderManager.events = NoOpEventSink.INSTANCE;
+        // Drop old history instead of archiving it, so the benchmarks do not measure disk writes
+        orderManager.finalizedOrders = new OrderHistory("Fulfilled", HISTORY_LIMIT, false);
+        orderManager.cancelledOrders = new OrderHistory("Cancelled", HISTORY_LIMIT, false);
+        oldestId = 1;
+        nextId = 1;
+        for (int i = 0; i < depth; i++) {
+            orderManager.enqueueOrder(newOrder());
+        }
+    }
+
+    private Order newOrder() {
+        return new Order(PRODUCT, false, 1, "customer", nextId++);
+    }
+
+    // What the last invocation did, for undo()
+    private static final int ENQUEUED = 1;
+    private static final int FULFILLED = 2;
+    private static final int CANCELLED = 3;
+    int lastOperation;
+
+    @Benchmark
+    public boolean enqueueOrder() {
+        lastOperation = ENQUEUED;
+        return orderManager.enqueueOrder(newOrder());
+    }
+
+    @Benchmark
+    public Order fulfillOrder() {
+        lastOperation = FULFILLED;
+        return orderManager.fulfillOrder();
+    }
+
+    @Benchmark
+    public boolean cancelOrder() {
+        lastOperation = CANCELLED;
+        return orderManager.cancelOrder(oldestId);
+    }
+
+    @TearDown(Level.Invocation)
+    public void undo() {
+        switch (lastOperation) {
+            case ENQUEUED:
+                // Drop the oldest order and give its stock back
+                orderManager.scheduler.next();
+                inventory.returnStock(PRODUCT, 1);
+                break;
+            case FULFILLED:
+                // Put a new order at the back
+                orderManager.scheduler.add(newOrder());
+                break;
+            case CANCELLED:
+                // Put a new order at the back and take back the stock the cancel returned
+                orderManager.scheduler.add(newOrder());
+                inventory.updateStock(PRODUCT, 1);
+                break;
+        }
+        oldestId++;
+    }
+}
@@ -0,0 +1,129 @@
+package OrderManagerApp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+// Deterministic stream of commands in the bulk load format, for load tests. It starts with one
+// restock per product, then draws each command from a seeded SplittableRandom: fulfills, cancels
+// and restocks at their configured rates and orders for the rest. Products are picked with a Zipf
+// distribution, so product k (from 1) is ordered in proportion to 1 / k^zipfExponent. Cancels name
+// one of the last CANCEL_WINDOW order IDs, some of which are already gone. The same seed and
+// settings always give the same commands.
+class WorkloadGenerator {
+    private static final int CANCEL_WINDOW = 10_000;
+    private static final int CUSTOMERS = 10_000;
+    private static final int MAX_QUANTITY = 5;
+
+    private final SplittableRandom random;
+    private final byte[][] productIds;
+    private final double[] popularity; // Cumulative probability of each product
+    private final double urgentRatio;
+    private final double fulfillRate;
+    private final double cancelRate;
+    private final double restockRate;
+    private final int initialStock;
+    private final int restockAmount;
+    private int initialRestocks; // Products given their starting stock so far
+    private int nextOrderId = 1;
+
+    public WorkloadGenerator(long seed, int products, double zipfExponent, double urgentRatio, double fulfillRate,
+                             double cancelRate, double restockRate, int initialStock, int restockAmount) {
+        if (products <= 0 || fulfillRate + cancelRate + restockRate > 1) {
+            throw new IllegalArgumentException("Need at least one product and rates that add up to at most 1");
+        }
+        random = new SplittableRandom(seed);
+        productIds = new byte[products][];
+        popularity = new double[products];
+        double total = 0;
+        for (int i = 0; i < products; i++) {
+            productIds[i] = String.format("SKU-%06d", i).getBytes(StandardCharsets.US_ASCII);
+            total += 1 / Math.pow(i + 1, zipfExponent);
+            popularity[i] = total;
+        }
+        for (int i = 0; i < products; i++) {
+            popularity[i] /= total;
+        }
+        this.urgentRatio = urgentRatio;
+        this.fulfillRate = fulfillRate;
+        this.cancelRate = cancelRate;
+        this.restockRate = restockRate;
+        this.initialStock = initialStock;
+        this.restockAmount = restockAmount;
+    }
+
+    // Write the next command line, without its newline, at the start of buf and return its length.
+    // buf must hold at least 64 bytes.
+    public int next(byte[] buf) {
+        if (initialRestocks < productIds.length) {
+            return restock(buf, productIds[initialRestocks++], initialStock);
+        }
+        double roll = random.nextDouble();
+        if (roll < fulfillRate) {
+            buf[0] = 'F';
+            return 1;
+        }
+        if (roll < fulfillRate + cancelRate) {
+            int newest = nextOrderId - 1;
+            int orderId = newest - random.nextInt(Math.min(CANCEL_WINDOW, Math.max(newest, 1)));
+            buf[0] = 'C';
+            buf[1] = ',';
+            return putInt(buf, 2, orderId);
+        }
+        if (roll < fulfillRate + cancelRate + restockRate) {
+            return restock(buf, productIds[product()], restockAmount);
+        }
+        byte[] productId = productIds[product()];
+        int at = 0;
+        buf[at++] = 'O';
+        buf[at++] = ',';
+        System.arraycopy(productId, 0, buf, at, productId.length);
+        at += productId.length;
+        buf[at++] = ',';
+        at = putInt(buf, at, 1 + random.nextInt(MAX_QUANTITY));
+        buf[at++] = ',';
+        buf[at++] = 'C';
+        at = putInt(buf, at, random.nextInt(CUSTOMERS));
+        buf[at++] = ',';
+        at = putInt(buf, at, nextOrderId++);
+        buf[at++] = ',';
+        buf[at++] = random.nextDouble() < urgentRatio ? (byte) '1' : (byte) '0';
+        return at;
+    }
+
+    private int product() {
+        double roll = random.nextDouble();
+        int low = 0;
+        int high = popularity.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (popularity[mid] < roll) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int restock(byte[] buf, byte[] productId, int amount) {
+        buf[0] = 'R';
+        buf[1] = ',';
+        System.arraycopy(productId, 0, buf, 2, productId.length);
+        int at = 2 + productId.length;
+        buf[at++] = ',';
+        return putInt(buf, at, amount);
+    }
+
+    // Write a non-negative int in decimal, returns the position after it
+    private static int putInt(byte[] buf, int at, int value) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = at + digits - 1; i >= at; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + digits;
+    }
+}